@@ -0,0 +1,109 @@
+package com.example.feetmap;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Offline classification of many feature windows at once.
+ *
+ * Windows are a row-major {@code float[]} matrix in model feature order, and
+ * probabilities come back as a row-major matrix with one row per window. Large
+ * batches are split across a fork-join pool; each chunk runs
+ * {@link QuantizedForest#predictProbaRange}, which walks the forest tree by tree.
+ */
+public class BatchPredictor {
+    // Windows per task, below this splitting costs more than it saves
+    private static final int CHUNK_WINDOWS = 512;
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final QuantizedForest forest;
+
+    public BatchPredictor(QuantizedForest forest) {
+        this.forest = forest;
+    }
+
+    /**
+     * Runs a whole session through a {@link StreamingFeatureExtractor}.
+     *
+     * @return one row of model features per window
+     */
+    public float[] extractWindows(RunColumns columns, int windowLength, int hop) {
+        int features = forest.getFeatureCount();
+        int windows = columns.size() < windowLength ? 0 : (columns.size() - windowLength) / hop + 1;
+        float[] matrix = new float[windows * features];
+
+        StreamingFeatureExtractor extractor = new StreamingFeatureExtractor(windowLength, hop);
+        FeatureVector vector = new FeatureVector(forest.getFeatureNames());
+        float[] x = columns.channel(RunColumns.ACC_X);
+        float[] y = columns.channel(RunColumns.ACC_Y);
+        float[] z = columns.channel(RunColumns.ACC_Z);
+        int row = 0;
+        for (int i = 0; i < columns.size() && row < windows; i++) {
+            if (extractor.add(x[i], y[i], z[i])) {
+                extractor.read(vector);
+                System.arraycopy(vector.values(), 0, matrix, row * features, features);
+                row++;
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Class probabilities for every row of {@code windows}.
+     */
+    public float[] predictProba(float[] windows) {
+        int count = windows.length / forest.getFeatureCount();
+        float[] out = new float[count * forest.getClassCount()];
+        predictProba(windows, count, out);
+        return out;
+    }
+
+    public void predictProba(float[] windows, int count, float[] out) {
+        if (count <= CHUNK_WINDOWS) {
+            forest.predictProbaRange(windows, 0, count, out);
+        } else {
+            POOL.invoke(new Chunk(windows, 0, count, out));
+        }
+    }
+
+    /**
+     * Most probable class index of every row of a probability matrix.
+     */
+    public int[] argMax(float[] probabilities) {
+        int classes = forest.getClassCount();
+        int[] labels = new int[probabilities.length / classes];
+        for (int w = 0; w < labels.length; w++) {
+            int row = w * classes;
+            int best = 0;
+            for (int c = 1; c < classes; c++) {
+                if (probabilities[row + c] > probabilities[row + best]) best = c;
+            }
+            labels[w] = best;
+        }
+        return labels;
+    }
+
+    private class Chunk extends RecursiveAction {
+        private final float[] windows;
+        private final int from;
+        private final int to;
+        private final float[] out;
+
+        Chunk(float[] windows, int from, int to, float[] out) {
+            this.windows = windows;
+            this.from = from;
+            this.to = to;
+            this.out = out;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_WINDOWS) {
+                forest.predictProbaRange(windows, from, to, out);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Chunk(windows, from, mid, out), new Chunk(windows, mid, to, out));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.feetmap;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.LruCache;
+import android.util.SparseArray;
+
+/**
+ * App-wide cache of decoded image resources.
+ *
+ * Resources are decoded with the largest power-of-two {@code inSampleSize} that
+ * still covers the requested size, and the result is shared by every view asking
+ * for the same resource at that sample size. Cached bitmaps are shared, so callers
+ * must never recycle them. The cache empties itself when the app goes to the
+ * background or the system runs low on memory.
+ */
+public final class BitmapCache {
+    // A slice of the heap, sized in kilobytes
+    private static final int MAX_SIZE_KB = (int) (Runtime.getRuntime().maxMemory() / 1024 / 16);
+
+    private static final LruCache<String, Bitmap> cache = new LruCache<String, Bitmap>(MAX_SIZE_KB) {
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getByteCount() / 1024;
+        }
+    };
+    // Unscaled resource dimensions, [width, height]
+    private static final SparseArray<int[]> bounds = new SparseArray<>();
+    private static boolean registered;
+
+    private BitmapCache() {
+    }
+
+    /**
+     * Width / height of the resource, read without decoding its pixels.
+     */
+    public static float aspectRatio(Context context, int resourceId) {
+        int[] size = sizeOf(context, resourceId);
+        return size[1] > 0 ? (float) size[0] / size[1] : 1f;
+    }
+
+    /**
+     * The resource decoded to at least {@code reqWidth x reqHeight} where the
+     * source allows it, shared with every other caller.
+     */
+    public static Bitmap get(Context context, int resourceId, int reqWidth, int reqHeight) {
+        registerTrimCallback(context);
+
+        int[] size = sizeOf(context, resourceId);
+        int sampleSize = sampleSizeFor(size[0], size[1], reqWidth, reqHeight);
+        String key = resourceId + "@" + sampleSize;
+
+        Bitmap bitmap = cache.get(key);
+        if (bitmap == null) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = sampleSize;
+            // The views scale to their own size, skip the density pre-scaling
+            options.inScaled = false;
+            bitmap = BitmapFactory.decodeResource(context.getResources(), resourceId, options);
+            if (bitmap != null) {
+                cache.put(key, bitmap);
+            }
+        }
+        return bitmap;
+    }
+
+    public static void clear() {
+        cache.evictAll();
+    }
+
+    private static int[] sizeOf(Context context, int resourceId) {
+        int[] size = bounds.get(resourceId);
+        if (size == null) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            options.inScaled = false;
+            BitmapFactory.decodeResource(context.getResources(), resourceId, options);
+            size = new int[]{options.outWidth, options.outHeight};
+            bounds.put(resourceId, size);
+        }
+        return size;
+    }
+
+    private static int sampleSizeFor(int width, int height, int reqWidth, int reqHeight) {
+        int sampleSize = 1;
+        if (reqWidth <= 0 || reqHeight <= 0) return sampleSize;
+        while (width / (sampleSize * 2) >= reqWidth && height / (sampleSize * 2) >= reqHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static void registerTrimCallback(Context context) {
+        if (registered) return;
+        registered = true;
+        context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= TRIM_MEMORY_UI_HIDDEN) {
+                    clear();
+                } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                    cache.trimToSize(cache.maxSize() / 2);
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                clear();
+            }
+        });
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.feetmap;
+
+/**
+ * Level-of-detail reduction for chart series.
+ *
+ * Both modes read only the requested index range of a column and write at most
+ * a fixed number of points, so charts can be refreshed on every zoom or pan
+ * without walking the whole run. Peaks survive the reduction: min/max bucketing
+ * keeps the extremes of every bucket, LTTB keeps the points that span the
+ * largest triangles.
+ */
+public final class ChartDownsampler {
+
+    public enum Mode { MIN_MAX, LTTB }
+
+    private ChartDownsampler() {}
+
+    /**
+     * Reduces samples {@code [from, to)} to at most {@code maxPoints} points.
+     * X values are written in seconds.
+     *
+     * @return the number of points written to {@code outX} / {@code outY}
+     */
+    public static int downsample(Mode mode, long[] timestamps, float[] values, int from, int to,
+                                 int maxPoints, float[] outX, float[] outY) {
+        if (to - from <= maxPoints || maxPoints < 4) {
+            return copy(timestamps, values, from, to, outX, outY);
+        }
+        if (mode == Mode.LTTB) {
+            return lttb(timestamps, values, from, to, maxPoints, outX, outY);
+        }
+        return minMax(timestamps, values, from, to, maxPoints / 2, outX, outY);
+    }
+
+    private static int copy(long[] timestamps, float[] values, int from, int to,
+                            float[] outX, float[] outY) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            outX[n] = timestamps[i] / 1000f;
+            outY[n] = values[i];
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Splits the time span into {@code buckets} equal slices (one per pixel column)
+     * and keeps the minimum and maximum of each, in the order they occurred.
+     */
+    static int minMax(long[] timestamps, float[] values, int from, int to, int buckets,
+                      float[] outX, float[] outY) {
+        long t0 = timestamps[from];
+        long span = Math.max(1, timestamps[to - 1] - t0);
+        int n = 0;
+
+        int i = from;
+        while (i < to) {
+            int bucket = bucketOf(timestamps[i], t0, span, buckets);
+            int minIndex = i;
+            int maxIndex = i;
+            i++;
+            while (i < to && bucketOf(timestamps[i], t0, span, buckets) == bucket) {
+                if (values[i] < values[minIndex]) minIndex = i;
+                if (values[i] > values[maxIndex]) maxIndex = i;
+                i++;
+            }
+
+            int first = Math.min(minIndex, maxIndex);
+            int second = Math.max(minIndex, maxIndex);
+            outX[n] = timestamps[first] / 1000f;
+            outY[n] = values[first];
+            n++;
+            if (second != first) {
+                outX[n] = timestamps[second] / 1000f;
+                outY[n] = values[second];
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private static int bucketOf(long timestamp, long t0, long span, int buckets) {
+        return (int) Math.min(buckets - 1, (timestamp - t0) * buckets / span);
+    }
+
+    /**
+     * Largest-triangle-three-buckets: keeps the first and last sample and, from every
+     * bucket in between, the sample forming the largest triangle with the previously
+     * kept point and the average of the next bucket.
+     */
+    static int lttb(long[] timestamps, float[] values, int from, int to, int threshold,
+                    float[] outX, float[] outY) {
+        int count = to - from;
+        int n = 0;
+        outX[n] = timestamps[from] / 1000f;
+        outY[n] = values[from];
+        n++;
+
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int a = from;
+
+        for (int b = 0; b < threshold - 2; b++) {
+            int bucketStart = from + 1 + (int) (b * bucketSize);
+            int bucketEnd = from + 1 + (int) ((b + 1) * bucketSize);
+
+            // Average of the next bucket, the last point is its own bucket
+            int nextStart = bucketEnd;
+            int nextEnd = Math.min(from + 1 + (int) ((b + 2) * bucketSize), to);
+            if (nextStart >= nextEnd) {
+                nextStart = to - 1;
+                nextEnd = to;
+            }
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                avgX += timestamps[j];
+                avgY += values[j];
+            }
+            avgX /= (nextEnd - nextStart);
+            avgY /= (nextEnd - nextStart);
+
+            double ax = timestamps[a];
+            double ay = values[a];
+            double maxArea = -1;
+            int chosen = bucketStart;
+            for (int j = bucketStart; j < bucketEnd; j++) {
+                double area = Math.abs((ax - avgX) * (values[j] - ay)
+                        - (ax - timestamps[j]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = j;
+                }
+            }
+
+            outX[n] = timestamps[chosen] / 1000f;
+            outY[n] = values[chosen];
+            n++;
+            a = chosen;
+        }
+
+        outX[n] = timestamps[to - 1] / 1000f;
+        outY[n] = values[to - 1];
+        n++;
+        return n;
+    }
+}
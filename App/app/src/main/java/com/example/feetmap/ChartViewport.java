@@ -0,0 +1,88 @@
+package com.example.feetmap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single visible x-range shared by linked charts and the run timeline.
+ *
+ * Gestures and timeline touches write the range here instead of moving every other
+ * view directly. Observers are notified once per frame through the
+ * {@link RenderScheduler}, however many updates arrived, so N linked views cost one
+ * pass each and never feed changes back into one another.
+ */
+public class ChartViewport implements RenderScheduler.FrameListener {
+
+    public interface Listener {
+        void onViewportChanged(float from, float to);
+    }
+
+    private final RenderScheduler scheduler;
+    private final List<Listener> listeners = new ArrayList<>();
+    private float minX;
+    private float maxX = 1f;
+    private float from;
+    private float to = 1f;
+    private boolean changed;
+
+    public ChartViewport(RenderScheduler scheduler) {
+        this.scheduler = scheduler;
+        scheduler.addFrameListener(this);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sets the data range the viewport is clamped to.
+     */
+    public void setBounds(float minX, float maxX) {
+        this.minX = minX;
+        this.maxX = Math.max(maxX, minX + 0.001f);
+        setVisibleRange(from, to);
+    }
+
+    public float getFrom() {
+        return from;
+    }
+
+    public float getTo() {
+        return to;
+    }
+
+    public float getWidth() {
+        return to - from;
+    }
+
+    public void setVisibleRange(float from, float to) {
+        float width = Math.min(Math.max(to - from, 0.001f), maxX - minX);
+        float start = Math.min(Math.max(from, minX), maxX - width);
+        if (start == this.from && start + width == this.to) return;
+
+        this.from = start;
+        this.to = start + width;
+        changed = true;
+        scheduler.requestFrame();
+    }
+
+    /**
+     * Moves the left edge to {@code x}, keeping the current width.
+     */
+    public void moveTo(float x) {
+        setVisibleRange(x, x + getWidth());
+    }
+
+    @Override
+    public void onFrame(long frameTimeNanos) {
+        if (!changed) return;
+        changed = false;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onViewportChanged(from, to);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.feetmap;
+
+import com.github.mikephil.charting.charts.LineChart;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.data.LineDataSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feeds a {@link LineChart} from {@link RunColumns} without holding entries for the
+ * whole run.
+ *
+ * Each data set only contains the visible range plus one viewport of prefetch on
+ * either side, downsampled to a few points per pixel. Entries come from an
+ * {@link EntryPool} and go back to it when the window moves, so the chart's heap
+ * use depends on the screen width, not on the length of the run.
+ */
+public class ColumnChartAdapter {
+    // Each chart gets at most ~2 points per pixel of the prepared window
+    private static final int POINTS_PER_PIXEL = 2;
+    // Re-sample once the zoom level drifts this far from the prepared density
+    private static final float DENSITY_TOLERANCE = 1.5f;
+
+    private final LineChart chart;
+    private final RunColumns columns;
+    private final int[] channels;
+    private final ChartDownsampler.Mode mode;
+    private final EntryPool pool;
+    private final List<ArrayList<Entry>> entries = new ArrayList<>();
+    private SummaryPyramid pyramid;
+
+    // The time range and density currently materialized in the data sets
+    private float windowFrom;
+    private float windowTo;
+    private float pointsPerSecond;
+
+    private float[] sampleX = new float[0];
+    private float[] sampleY = new float[0];
+
+    public ColumnChartAdapter(LineChart chart, RunColumns columns, int[] channels,
+                              ChartDownsampler.Mode mode, EntryPool pool) {
+        this.chart = chart;
+        this.columns = columns;
+        this.channels = channels;
+        this.mode = mode;
+        this.pool = pool;
+        for (int i = 0; i < channels.length; i++) {
+            entries.add(new ArrayList<>());
+        }
+    }
+
+    public void setPyramid(SummaryPyramid pyramid) {
+        this.pyramid = pyramid;
+    }
+
+    /**
+     * The live entry list backing data set {@code index}. Contents change on every
+     * {@link #refresh()}.
+     */
+    public List<Entry> getEntries(int index) {
+        return entries.get(index);
+    }
+
+    /**
+     * Fills the entry lists with a coarse overview of the whole run, for use before
+     * the chart is laid out.
+     */
+    public void loadOverview(int pixelWidth) {
+        fill(0, columns.size(), POINTS_PER_PIXEL * pixelWidth);
+        pointsPerSecond = 0;
+    }
+
+    /**
+     * Re-materializes the visible range plus one viewport on either side. Does
+     * nothing while the prepared window still covers the viewport at a similar
+     * density, so most pans are free.
+     *
+     * @return whether the chart's entries were replaced
+     */
+    public boolean refresh() {
+        if (columns.isEmpty() || chart.getData() == null) return false;
+
+        int pixelWidth = (int) chart.getViewPortHandler().contentWidth();
+        if (pixelWidth <= 0) return false;
+
+        float low = chart.getLowestVisibleX();
+        float high = chart.getHighestVisibleX();
+        float visible = Math.max(high - low, 0.001f);
+        float density = POINTS_PER_PIXEL * pixelWidth / visible;
+        if (covers(low, high, density)) return false;
+
+        float from = low - visible;
+        float to = high + visible;
+        int fromIndex = Math.max(0, columns.indexAtOrAfter((long) (from * 1000f)) - 1);
+        int toIndex = Math.min(columns.size(), columns.indexAtOrAfter((long) (to * 1000f)) + 1);
+        fill(fromIndex, toIndex, 3 * POINTS_PER_PIXEL * pixelWidth);
+
+        LineData data = chart.getData();
+        for (int i = 0; i < channels.length; i++) {
+            LineDataSet set = (LineDataSet) data.getDataSetByIndex(i);
+            set.setValues(entries.get(i));
+        }
+        data.notifyDataChanged();
+        chart.notifyDataSetChanged();
+        chart.invalidate();
+
+        windowFrom = from;
+        windowTo = to;
+        pointsPerSecond = density;
+        return true;
+    }
+
+    /**
+     * Returns every materialized entry to the pool.
+     */
+    public void release() {
+        for (ArrayList<Entry> list : entries) {
+            pool.releaseAll(list);
+        }
+        pointsPerSecond = 0;
+    }
+
+    private boolean covers(float low, float high, float density) {
+        return pointsPerSecond > 0
+                && low >= windowFrom && high <= windowTo
+                && density > pointsPerSecond / DENSITY_TOLERANCE
+                && density < pointsPerSecond * DENSITY_TOLERANCE;
+    }
+
+    private void fill(int fromIndex, int toIndex, int maxPoints) {
+        if (sampleX.length < maxPoints + 2) {
+            sampleX = new float[maxPoints + 2];
+            sampleY = new float[maxPoints + 2];
+        }
+
+        for (int i = 0; i < channels.length; i++) {
+            ArrayList<Entry> list = entries.get(i);
+            pool.releaseAll(list);
+            if (toIndex <= fromIndex) continue;
+
+            int n;
+            if (pyramid != null && toIndex - fromIndex > 2 * maxPoints) {
+                // Zoomed far out, read min/max from the summary level instead of the samples
+                n = pyramid.downsample(channels[i], columns, fromIndex, toIndex, maxPoints / 2,
+                        sampleX, sampleY);
+            } else {
+                n = ChartDownsampler.downsample(mode, columns.timestamps(), columns.channel(channels[i]),
+                        fromIndex, toIndex, maxPoints, sampleX, sampleY);
+            }
+
+            list.ensureCapacity(n);
+            for (int j = 0; j < n; j++) {
+                list.add(pool.obtain(sampleX[j], sampleY[j]));
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.feetmap;
+
+/**
+ * Stopping rule shared by the early-exit forest evaluators, see
+ * {@link ForestEvaluator#predictProba(float[], float[], boolean, float)}.
+ *
+ * The rule is only checked at checkpoints, after {@link #MIN_TREES} trees and then
+ * every {@link #CHECK_EVERY} trees, so the trees in between run back to back. All
+ * evaluators stop at the same checkpoints and so return identical results.
+ */
+public final class EarlyExit {
+    // Fewest trees an early exit may stop after
+    public static final int MIN_TREES = 10;
+    public static final int CHECK_EVERY = 5;
+
+    private EarlyExit() {
+    }
+
+    public static boolean isCheckpoint(int used) {
+        return used >= MIN_TREES && (used - MIN_TREES) % CHECK_EVERY == 0;
+    }
+
+    /**
+     * Whether evaluation may stop with {@code used} of {@code trees} trees summed
+     * into {@code sums}.
+     */
+    public static boolean canStop(float[] sums, int classCount, int used, int trees,
+                                  boolean exitWhenDecided, float confidenceBound) {
+        float leader = -1f;
+        float runnerUp = -1f;
+        for (int c = 0; c < classCount; c++) {
+            if (sums[c] > leader) {
+                runnerUp = leader;
+                leader = sums[c];
+            } else if (sums[c] > runnerUp) {
+                runnerUp = sums[c];
+            }
+        }
+        // Each tree left adds at most 1 to any class
+        if (exitWhenDecided && leader - runnerUp > trees - used) return true;
+        return confidenceBound <= 1f && leader >= confidenceBound * used;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.feetmap;
+
+import com.github.mikephil.charting.data.Entry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recycles chart {@link Entry} objects so refilling a data set does not allocate
+ * once the pool has grown to the size of the largest window shown.
+ */
+public class EntryPool {
+    private final ArrayList<Entry> free = new ArrayList<>();
+
+    public Entry obtain(float x, float y) {
+        int last = free.size() - 1;
+        if (last < 0) {
+            return new Entry(x, y);
+        }
+        Entry entry = free.remove(last);
+        entry.setX(x);
+        entry.setY(y);
+        return entry;
+    }
+
+    /**
+     * Returns every entry in {@code entries} to the pool and clears the list.
+     */
+    public void releaseAll(List<Entry> entries) {
+        free.addAll(entries);
+        entries.clear();
+    }
+
+    public int size() {
+        return free.size();
+    }
+
+    public void clear() {
+        free.clear();
+    }
+}
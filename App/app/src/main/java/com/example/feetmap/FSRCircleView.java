@@ -1,8 +1,11 @@
 package com.example.feetmap;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
 import android.view.View;
@@ -15,6 +18,11 @@ public class FSRCircleView extends View {
     // Position circles vertically at 30%, 50%, and 70% of height
     private float[] circlePositionsX = {0.3f, 0.5f, 0.5f}; // All circles centered horizontally
     private float[] circlePositionsY = {0.3f, 0.5f, 0.9f}; // Vertical positions as percentage of height
+    // Geometry and fill colors are resolved outside of onDraw
+    private final float[] centersX = new float[3];
+    private final float[] centersY = new float[3];
+    private final int[] fillColors = new int[3];
+    private float radius;
 
     public FSRCircleView(Context context) {
         super(context);
@@ -29,51 +37,86 @@ public class FSRCircleView extends View {
     private void init() {
         paint = new Paint();
         paint.setAntiAlias(true);
-        // Load the background image
-        backgroundImage = getResources().getDrawable(R.drawable.pic);
+        for (int i = 0; i < 3; i++) {
+            fillColors[i] = colorFor(values[i]);
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        // Background decoded at the view size and shared with other instances
+        if (w > 0 && h > 0) {
+            Bitmap background = BitmapCache.get(getContext(), R.drawable.pic, w, h);
+            backgroundImage = background != null ? new BitmapDrawable(getResources(), background) : null;
+        }
+        if (backgroundImage != null) {
+            backgroundImage.setBounds(0, 0, w, h);
+        }
+
+        // Calculate the radius (12% of the smallest dimension for slightly smaller circles)
+        radius = Math.min(w, h) * 0.12f;
+        for (int i = 0; i < 3; i++) {
+            centersX[i] = w * circlePositionsX[i];
+            centersY[i] = h * circlePositionsY[i];
+        }
+    }
+
+    // Green at rest to red at full pressure, semi-transparent
+    private static int colorFor(float value) {
+        float intensity = value / MAX_VALUE;
+        int red = (int) (255 * intensity);
+        int green = (int) (255 * (1 - intensity));
+        return Color.argb(180, red, green, 0);
     }
 
     public void setValue(int index, float newValue) {
         if (index >= 0 && index < 3) {
             values[index] = Math.min(Math.max(newValue, 0), MAX_VALUE);
+            fillColors[index] = colorFor(values[index]);
             invalidate(); // Trigger redraw
         }
     }
 
+    /**
+     * Updates all three circles with a single redraw.
+     */
+    public void setValues(float[] newValues) {
+        boolean changed = false;
+        for (int i = 0; i < 3; i++) {
+            float value = Math.min(Math.max(newValues[i], 0), MAX_VALUE);
+            if (value != values[i]) {
+                values[i] = value;
+                fillColors[i] = colorFor(value);
+                changed = true;
+            }
+        }
+        if (changed) {
+            invalidate();
+        }
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
         // Draw background image
         if (backgroundImage != null) {
-            backgroundImage.setBounds(0, 0, getWidth(), getHeight());
             backgroundImage.draw(canvas);
         }
 
-        // Calculate the radius (12% of the smallest dimension for slightly smaller circles)
-        float radius = Math.min(getWidth(), getHeight()) * 0.12f;
-
         // Draw three circles
         for (int i = 0; i < 3; i++) {
-            // Calculate center coordinates for each circle
-            float centerX = getWidth() * circlePositionsX[i];
-            float centerY = getHeight() * circlePositionsY[i];
-
-            // Calculate color based on value
-            float intensity = values[i] / MAX_VALUE;
-            int red = (int) (255 * intensity);
-            int green = (int) (255 * (1 - intensity));
-
             // Draw filled circle
             paint.setStyle(Paint.Style.FILL);
-            paint.setARGB(180, red, green, 0); // Semi-transparent
-            canvas.drawCircle(centerX, centerY, radius, paint);
+            paint.setColor(fillColors[i]);
+            canvas.drawCircle(centersX[i], centersY[i], radius, paint);
 
             // Draw border
             paint.setStyle(Paint.Style.STROKE);
             paint.setARGB(255, 100, 100, 100);
             paint.setStrokeWidth(4);
-            canvas.drawCircle(centerX, centerY, radius, paint);
+            canvas.drawCircle(centersX[i], centersY[i], radius, paint);
         }
     }
-} 
\ No newline at end of file
+}
@@ -31,7 +31,11 @@ public class FSRFragment extends Fragment implements ServiceConnection, SerialLi
 
     private FSRCircleView fsrCircleView;
     private TextView fsrValue1, fsrValue2, fsrValue3;
+    private IntLabel fsrLabel1, fsrLabel2, fsrLabel3;
     private Button btnReturn;
+    private RenderScheduler renderScheduler;
+    // Written per sample, read once per frame
+    private final LatestValues latestFsrValues = new LatestValues(3);
 
     public static FSRFragment newInstance(String deviceAddress) {
         FSRFragment fragment = new FSRFragment();
@@ -58,15 +62,42 @@ public class FSRFragment extends Fragment implements ServiceConnection, SerialLi
         fsrValue2 = view.findViewById(R.id.fsrValue2);
         fsrValue3 = view.findViewById(R.id.fsrValue3);
         btnReturn = view.findViewById(R.id.btnReturn);
+        fsrLabel1 = new IntLabel(fsrValue1);
+        fsrLabel2 = new IntLabel(fsrValue2);
+        fsrLabel3 = new IntLabel(fsrValue3);
 
         btnReturn.setOnClickListener(v -> {
             disconnect();
             getActivity().getSupportFragmentManager().popBackStack();
         });
 
+        renderScheduler = new RenderScheduler();
+        renderScheduler.syncWithPowerSaveMode(requireContext());
+        renderScheduler.addFrameListener(this::renderFrame);
+
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        renderScheduler.stop();
+        renderScheduler = null;
+        super.onDestroyView();
+    }
+
+    private void renderFrame(long frameTimeNanos) {
+        if (!latestFsrValues.poll()) return;
+        float[] values = latestFsrValues.values();
+
+        // Update circles on single view
+        fsrCircleView.setValues(values);
+
+        // Update value labels
+        fsrLabel1.set(values[0]);
+        fsrLabel2.set(values[1]);
+        fsrLabel3.set(values[2]);
+    }
+
     @Override
     public void onViewCreated(@NonNull View view, Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
@@ -177,19 +208,14 @@ public class FSRFragment extends Fragment implements ServiceConnection, SerialLi
                             float fsr2 = Float.parseFloat(values[4].trim());
                             float fsr3 = Float.parseFloat(values[5].trim());
 
-                            // Update UI on main thread
-                            if (getActivity() != null) {
-                                getActivity().runOnUiThread(() -> {
-                                    // Update circles on single view
-                                    fsrCircleView.setValue(0, fsr1);
-                                    fsrCircleView.setValue(1, fsr2);
-                                    fsrCircleView.setValue(2, fsr3);
-
-                                    // Update value labels
-                                    fsrValue1.setText(String.format("%.0f", fsr1));
-                                    fsrValue2.setText(String.format("%.0f", fsr2));
-                                    fsrValue3.setText(String.format("%.0f", fsr3));
-                                });
+                            // Keep the latest values, the views pick them up on the next frame
+                            float[] latest = latestFsrValues.edit();
+                            latest[0] = fsr1;
+                            latest[1] = fsr2;
+                            latest[2] = fsr3;
+                            latestFsrValues.publish();
+                            if (renderScheduler != null) {
+                                renderScheduler.requestFrame();
                             }
                         } catch (NumberFormatException e) {
                             Log.e(TAG, "Error parsing values: " + e.getMessage());
@@ -0,0 +1,88 @@
+package com.example.feetmap;
+
+/**
+ * Reusable feature vector for the movement classifier.
+ *
+ * Extractors address features through the constants below. Where each feature
+ * sits in the model's input is resolved against the model's {@code feature_names}
+ * once, when the vector is created, so filling a vector is plain array stores and
+ * {@link #values()} can be handed straight to the forest.
+ */
+public class FeatureVector {
+    public static final int MAX_X = 0;
+    public static final int MAX_Y = 1;
+    public static final int MAX_Z = 2;
+    public static final int MIN_X = 3;
+    public static final int MIN_Y = 4;
+    public static final int MIN_Z = 5;
+    public static final int MEDIAN_X = 6;
+    public static final int MEDIAN_Y = 7;
+    public static final int MEDIAN_Z = 8;
+    public static final int MEAN_X = 9;
+    public static final int MEAN_Y = 10;
+    public static final int MEAN_Z = 11;
+    public static final int FEATURE_COUNT = 12;
+
+    public static final int AXIS_X = 0;
+    public static final int AXIS_Y = 1;
+    public static final int AXIS_Z = 2;
+
+    // Names as exported by RandomForest/model.py, indexed by the constants above
+    private static final String[] NAMES = {
+            "max_x", "max_y", "max_z",
+            "min_x", "min_y", "min_z",
+            "median_x", "median_y", "median_z",
+            "mean_x", "mean_y", "mean_z"
+    };
+
+    private final float[] values;
+    // slots[feature] = position of that feature in the model input
+    private final int[] slots = new int[FEATURE_COUNT];
+
+    /**
+     * @throws IllegalArgumentException if the model expects a feature this class
+     *                                  does not know, or lacks one it does
+     */
+    public FeatureVector(String[] featureNames) {
+        if (featureNames.length != FEATURE_COUNT) {
+            throw new IllegalArgumentException("Model expects " + featureNames.length
+                    + " features, " + FEATURE_COUNT + " are extracted");
+        }
+        values = new float[featureNames.length];
+        for (int feature = 0; feature < FEATURE_COUNT; feature++) {
+            slots[feature] = indexOf(featureNames, NAMES[feature]);
+        }
+    }
+
+    private static int indexOf(String[] featureNames, String name) {
+        for (int i = 0; i < featureNames.length; i++) {
+            if (featureNames[i].equals(name)) return i;
+        }
+        throw new IllegalArgumentException("Model has no feature " + name);
+    }
+
+    public void set(int feature, float value) {
+        values[slots[feature]] = value;
+    }
+
+    public float get(int feature) {
+        return values[slots[feature]];
+    }
+
+    /**
+     * Sets the four statistics of one accelerometer axis.
+     */
+    public void setAxis(int axis, float max, float min, float median, float mean) {
+        values[slots[MAX_X + axis]] = max;
+        values[slots[MIN_X + axis]] = min;
+        values[slots[MEDIAN_X + axis]] = median;
+        values[slots[MEAN_X + axis]] = mean;
+    }
+
+    /**
+     * The features in model input order. Owned by this vector, do not modify.
+     */
+    public float[] values() {
+        return values;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.feetmap;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+/**
+ * Foot image placement and heel/mid/toe regions shared by the heatmap views.
+ *
+ * The foot outline is rendered once per size change into an {@code ALPHA_8} mask.
+ * Drawing that mask tints it with the paint's color (or shader), so a region is a
+ * clipped {@code drawBitmap} that works on a hardware canvas, with no software
+ * layer, {@code saveLayer} or bitmap erase per frame.
+ */
+public class FootRegions {
+    public static final int HEEL = 0;
+    public static final int MID = 1;
+    public static final int TOE = 2;
+    public static final int REGION_COUNT = 3;
+
+    private final RectF imageRect = new RectF();
+    private final RectF sourceRect = new RectF();
+    private final Matrix scaleMatrix = new Matrix();
+    private final RectF[] sections = {new RectF(), new RectF(), new RectF()};
+    private final Paint maskPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+    private Bitmap mask;
+
+    /**
+     * Fits the foot image into a {@code width x height} view and rebuilds the mask.
+     */
+    public void layout(Bitmap footImage, int width, int height) {
+        if (width <= 0 || height <= 0) return;
+
+        float imageRatio = (float) footImage.getWidth() / footImage.getHeight();
+        float viewRatio = (float) width / height;
+
+        float left, top, right, bottom;
+
+        if (imageRatio > viewRatio) {
+            left = 0;
+            right = width;
+            float fitHeight = width / imageRatio;
+            top = (height - fitHeight) / 2f;
+            bottom = top + fitHeight;
+        } else {
+            top = 0;
+            bottom = height;
+            float fitWidth = height * imageRatio;
+            left = (width - fitWidth) / 2f;
+            right = left + fitWidth;
+        }
+
+        imageRect.set(left, top, right, bottom);
+        sourceRect.set(0, 0, footImage.getWidth(), footImage.getHeight());
+        scaleMatrix.setRectToRect(sourceRect, imageRect, Matrix.ScaleToFit.CENTER);
+
+        float heelY = imageRect.top + (imageRect.height() * 0.7f);
+        float midY = imageRect.top + (imageRect.height() * 0.35f);
+        sections[HEEL].set(imageRect.left, heelY, imageRect.right, imageRect.bottom);
+        sections[MID].set(imageRect.left, midY, imageRect.right, heelY);
+        sections[TOE].set(imageRect.left, imageRect.top, imageRect.right, midY);
+
+        // Only the alpha of the foot image matters for the mask
+        if (mask != null) {
+            mask.recycle();
+        }
+        mask = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+        new Canvas(mask).drawBitmap(footImage, scaleMatrix, maskPaint);
+    }
+
+    public boolean isReady() {
+        return mask != null;
+    }
+
+    public Matrix getScaleMatrix() {
+        return scaleMatrix;
+    }
+
+    public RectF getImageRect() {
+        return imageRect;
+    }
+
+    public RectF getSection(int region) {
+        return sections[region];
+    }
+
+    /**
+     * Fills one region of the foot outline with {@code color}.
+     */
+    public void drawRegion(Canvas canvas, int region, int color) {
+        maskPaint.setColor(color);
+        int save = canvas.save();
+        canvas.clipRect(sections[region]);
+        canvas.drawBitmap(mask, 0, 0, maskPaint);
+        canvas.restoreToCount(save);
+    }
+
+    /**
+     * Fills the whole foot outline using {@code paint}'s color or shader.
+     */
+    public void drawMask(Canvas canvas, Paint paint) {
+        canvas.drawBitmap(mask, 0, 0, paint);
+    }
+
+    public void recycle() {
+        if (mask != null) {
+            mask.recycle();
+            mask = null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.feetmap;
+
+/**
+ * Evaluates the random forest for one feature vector.
+ *
+ * Implemented by the {@link QuantizedForest} interpreter and by the
+ * {@code GeneratedForest} class that the {@code generateForestSource} Gradle task
+ * emits from the same model.
+ */
+public interface ForestEvaluator {
+    /**
+     * Writes the class probabilities for {@code features} into {@code out}.
+     */
+    void predictProba(float[] features, float[] out);
+
+    /**
+     * Early-exit variant of {@link #predictProba(float[], float[])}. Trees are
+     * evaluated in model order and evaluation stops at the first
+     * {@link EarlyExit} checkpoint where
+     * <ul>
+     * <li>{@code exitWhenDecided} is set and the trees left cannot change the most
+     * probable class, since each adds at most 1 to any class, or</li>
+     * <li>the leading class has a mean probability of {@code confidenceBound} or
+     * more.</li>
+     * </ul>
+     * {@code out} holds the mean over the trees used. With {@code exitWhenDecided}
+     * off and {@code confidenceBound} above 1 every tree runs and the result equals
+     * the full evaluation exactly.
+     *
+     * @return the number of trees evaluated
+     */
+    int predictProba(float[] features, float[] out, boolean exitWhenDecided, float confidenceBound);
+}
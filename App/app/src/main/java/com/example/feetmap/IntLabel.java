@@ -0,0 +1,38 @@
+package com.example.feetmap;
+
+import android.widget.TextView;
+
+/**
+ * A TextView showing a rounded integer. Strings for the FSR range are built once
+ * and reused, and the view is only touched when the shown value changes.
+ */
+public class IntLabel {
+    private static final int CACHED = 1024;
+    private static final String[] STRINGS = new String[CACHED];
+
+    private final TextView view;
+    private int shown = Integer.MIN_VALUE;
+
+    public IntLabel(TextView view) {
+        this.view = view;
+    }
+
+    public void set(float value) {
+        int rounded = Math.round(value);
+        if (rounded == shown) return;
+        shown = rounded;
+        view.setText(toText(rounded));
+    }
+
+    public static String toText(int value) {
+        if (value < 0 || value >= CACHED) {
+            return Integer.toString(value);
+        }
+        String text = STRINGS[value];
+        if (text == null) {
+            text = Integer.toString(value);
+            STRINGS[value] = text;
+        }
+        return text;
+    }
+}
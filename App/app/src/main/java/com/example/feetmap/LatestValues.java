@@ -0,0 +1,71 @@
+package com.example.feetmap;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Latest-value snapshot between a sensor data path and the views that show it.
+ *
+ * The writer fills {@link #edit()} and calls {@link #publish()} as often as samples
+ * arrive; the reader calls {@link #poll()} once per frame and reads
+ * {@link #values()}. Three buffers are swapped atomically, so neither side blocks,
+ * nothing is allocated after construction, and the reader always gets the newest
+ * complete sample.
+ */
+public class LatestValues {
+
+    private static class Slot {
+        final float[] values;
+        long sequence;
+
+        Slot(int size) {
+            values = new float[size];
+        }
+    }
+
+    private final AtomicReference<Slot> published;
+    private Slot back;
+    private Slot front;
+    private long writeSequence;
+    private long readSequence;
+
+    public LatestValues(int size) {
+        published = new AtomicReference<>(new Slot(size));
+        back = new Slot(size);
+        front = new Slot(size);
+    }
+
+    /**
+     * Buffer for the next sample. Writer side only.
+     */
+    public float[] edit() {
+        return back.values;
+    }
+
+    /**
+     * Makes the values written to {@link #edit()} visible to the reader.
+     */
+    public void publish() {
+        back.sequence = ++writeSequence;
+        back = published.getAndSet(back);
+    }
+
+    /**
+     * Picks up the newest published sample, if any arrived since the last poll.
+     * Reader side only.
+     *
+     * @return whether {@link #values()} changed
+     */
+    public boolean poll() {
+        if (published.get().sequence <= readSequence) return false;
+        front = published.getAndSet(front);
+        readSequence = front.sequence;
+        return true;
+    }
+
+    /**
+     * The sample picked up by the last {@link #poll()}. Reader side only.
+     */
+    public float[] values() {
+        return front.values;
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.feetmap;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Classifies the terrain (Stairs / Walking) from live accelerometer samples.
+ *
+ * Samples are handed over through a single-producer ring buffer and drained on a
+ * dedicated inference thread, which feeds a {@link StreamingFeatureExtractor} and
+ * runs the forest whenever a window completes. Window probabilities are smoothed
+ * with an exponential moving average, and the published class only changes once
+ * another class leads by a margin for several windows in a row. The listener is
+ * called on the main thread.
+ *
+ * Latency is measured from the arrival of the sample that completes a window to
+ * the listener call, and logged every {@link #LOG_EVERY_WINDOWS} windows. When
+ * several windows are classified before the main thread gets to them, only the
+ * newest is shown, but the latency of every one of them is recorded.
+ */
+public class LiveClassifier {
+
+    public interface Listener {
+        void onClassification(int classIndex, String label, float confidence);
+    }
+
+    /**
+     * One classified window, immutable once handed to the main thread.
+     */
+    private static final class Window {
+        final int classIndex;
+        final float confidence;
+        final long arrivalNanos;
+        // Previous window, if the main thread had not picked it up yet
+        final Window earlier;
+
+        Window(int classIndex, float confidence, long arrivalNanos, Window earlier) {
+            this.classIndex = classIndex;
+            this.confidence = confidence;
+            this.arrivalNanos = arrivalNanos;
+            this.earlier = earlier;
+        }
+    }
+
+    private static final String TAG = "LiveClassifier";
+    public static final long LATENCY_BUDGET_NANOS = 100_000_000L;
+    private static final int LOG_EVERY_WINDOWS = 100;
+    // Must be a power of two
+    private static final int RING_CAPACITY = 1024;
+    // Weight of the newest window in the smoothed probabilities
+    private static final float SMOOTHING = 0.4f;
+    // A new class must lead the current one by this much ...
+    private static final float SWITCH_MARGIN = 0.15f;
+    // ... for this many consecutive windows
+    private static final int SWITCH_WINDOWS = 3;
+    // Early exit stops once the leading class averages this probability
+    private static final float EARLY_EXIT_CONFIDENCE = 0.8f;
+
+    private final ModelPredictor predictor;
+    private final String[] classes;
+    private final StreamingFeatureExtractor extractor;
+    private final FeatureVector features;
+    private final float[] probabilities;
+    private final float[] smoothed;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private Listener listener;
+    private volatile boolean earlyExit;
+
+    // Sample ring, written on the main thread and read on the worker
+    private final float[] ringX = new float[RING_CAPACITY];
+    private final float[] ringY = new float[RING_CAPACITY];
+    private final float[] ringZ = new float[RING_CAPACITY];
+    private final long[] ringArrival = new long[RING_CAPACITY];
+    private final AtomicLong written = new AtomicLong();
+    private long read;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final Runnable drain = this::drain;
+
+    // Hysteresis state, worker only
+    private int currentClass = -1;
+    private int candidateClass = -1;
+    private int candidateWindows;
+    private boolean smoothedReady;
+
+    // Newest classified window not yet seen by the main thread, linking the older ones
+    private final AtomicReference<Window> unpublished = new AtomicReference<>();
+    private final Runnable publish = this::publish;
+
+    // Latency metrics, main thread only
+    private long windows;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+    private long overBudget;
+    private volatile long droppedSamples;
+    // Trees evaluated, worker only
+    private long classifiedWindows;
+    private long treesUsed;
+
+    /**
+     * @param windowLength samples per classified window
+     * @param hop          samples between consecutive windows
+     */
+    public LiveClassifier(ModelPredictor predictor, int windowLength, int hop) {
+        this.predictor = predictor;
+        classes = predictor.getClasses();
+        extractor = new StreamingFeatureExtractor(windowLength, hop);
+        features = predictor.newFeatureVector();
+        probabilities = new float[classes.length];
+        smoothed = new float[classes.length];
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Stops evaluating trees once the window's class is settled, to save battery.
+     */
+    public void setEarlyExit(boolean earlyExit) {
+        this.earlyExit = earlyExit;
+    }
+
+    /**
+     * Queues one accelerometer sample. Main thread only, never blocks.
+     */
+    public void addSample(float x, float y, float z) {
+        long index = written.get();
+        int slot = (int) (index & (RING_CAPACITY - 1));
+        ringX[slot] = x;
+        ringY[slot] = y;
+        ringZ[slot] = z;
+        ringArrival[slot] = SystemClock.elapsedRealtimeNanos();
+        written.lazySet(index + 1);
+
+        if (drainScheduled.compareAndSet(false, true)) {
+            worker.execute(drain);
+        }
+    }
+
+    public void release() {
+        worker.shutdownNow();
+        mainHandler.removeCallbacks(publish);
+        logMetrics();
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        long available = written.get();
+        if (available - read > RING_CAPACITY) {
+            // The worker fell a full ring behind, restart from the oldest kept sample
+            droppedSamples += available - read - RING_CAPACITY;
+            read = available - RING_CAPACITY;
+            extractor.reset();
+        }
+
+        for (; read < available; read++) {
+            int slot = (int) (read & (RING_CAPACITY - 1));
+            if (extractor.add(ringX[slot], ringY[slot], ringZ[slot])) {
+                classifyWindow(ringArrival[slot]);
+            }
+        }
+    }
+
+    private void classifyWindow(long arrivalNanos) {
+        extractor.read(features);
+        if (earlyExit) {
+            treesUsed += predictor.predictProba(features, probabilities, true, EARLY_EXIT_CONFIDENCE);
+        } else {
+            predictor.predictProba(features, probabilities);
+            treesUsed += predictor.getTreeCount();
+        }
+        classifiedWindows++;
+
+        if (!smoothedReady) {
+            System.arraycopy(probabilities, 0, smoothed, 0, smoothed.length);
+            smoothedReady = true;
+        } else {
+            for (int c = 0; c < smoothed.length; c++) {
+                smoothed[c] += SMOOTHING * (probabilities[c] - smoothed[c]);
+            }
+        }
+
+        int best = 0;
+        for (int c = 1; c < smoothed.length; c++) {
+            if (smoothed[c] > smoothed[best]) best = c;
+        }
+        if (currentClass < 0) {
+            currentClass = best;
+        } else if (best != currentClass && smoothed[best] - smoothed[currentClass] >= SWITCH_MARGIN) {
+            candidateWindows = best == candidateClass ? candidateWindows + 1 : 1;
+            candidateClass = best;
+            if (candidateWindows >= SWITCH_WINDOWS) {
+                currentClass = best;
+                candidateWindows = 0;
+            }
+        } else {
+            candidateWindows = 0;
+        }
+
+        Window earlier;
+        Window window;
+        do {
+            earlier = unpublished.get();
+            window = new Window(currentClass, smoothed[currentClass], arrivalNanos, earlier);
+        } while (!unpublished.compareAndSet(earlier, window));
+        // A window already waiting means a publish is already posted
+        if (earlier == null) {
+            mainHandler.post(publish);
+        }
+    }
+
+    private void publish() {
+        Window newest = unpublished.getAndSet(null);
+        if (newest == null) return;
+        long now = SystemClock.elapsedRealtimeNanos();
+        for (Window window = newest; window != null; window = window.earlier) {
+            recordLatency(now - window.arrivalNanos);
+        }
+        if (listener != null) {
+            listener.onClassification(newest.classIndex, classes[newest.classIndex], newest.confidence);
+        }
+    }
+
+    private void recordLatency(long latencyNanos) {
+        windows++;
+        totalLatencyNanos += latencyNanos;
+        maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+        if (latencyNanos > LATENCY_BUDGET_NANOS) {
+            overBudget++;
+        }
+        if (windows % LOG_EVERY_WINDOWS == 0) {
+            logMetrics();
+        }
+    }
+
+    private void logMetrics() {
+        if (windows == 0) return;
+        Log.d(TAG, String.format("Sample-to-label latency over %d windows: mean %.1f ms, max %.1f ms, "
+                        + "%d over the %d ms budget, %d samples dropped, %.1f trees per window",
+                windows, totalLatencyNanos / 1e6 / windows, maxLatencyNanos / 1e6,
+                overBudget, LATENCY_BUDGET_NANOS / 1_000_000, droppedSamples,
+                classifiedWindows == 0 ? 0f : (float) treesUsed / classifiedWindows));
+    }
+
+    public String getClassName(int classIndex) {
+        return classes[classIndex];
+    }
+
+    public long getWindowCount() {
+        return windows;
+    }
+
+    public float getMeanLatencyMillis() {
+        return windows == 0 ? 0f : (float) (totalLatencyNanos / 1e6 / windows);
+    }
+
+    public float getMaxLatencyMillis() {
+        return (float) (maxLatencyNanos / 1e6);
+    }
+
+    public long getOverBudgetCount() {
+        return overBudget;
+    }
+}
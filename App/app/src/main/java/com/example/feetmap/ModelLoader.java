@@ -0,0 +1,135 @@
+package com.example.feetmap;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Loads the terrain model once per process, off the main thread.
+ *
+ * {@link #preload} is called at app start and maps the forest asset on a background
+ * thread, then runs a batch of warm-up predictions so the JIT has compiled the
+ * tree traversal before the first live window. Until that finishes
+ * {@link #getIfReady()} returns null instead of blocking, and {@link #whenReady}
+ * calls back on the main thread once the model can be used.
+ */
+public final class ModelLoader {
+
+    public interface Callback {
+        /**
+         * @param predictor the loaded model, or null if it could not be loaded
+         */
+        void onModelReady(ModelPredictor predictor);
+    }
+
+    private static final String TAG = "ModelLoader";
+    private static final int WARMUP_PREDICTIONS = 500;
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Main thread only
+    private static final List<Callback> pending = new ArrayList<>();
+    private static volatile Future<ModelPredictor> model;
+
+    private ModelLoader() {
+    }
+
+    /**
+     * Starts loading the model if that has not happened yet. Main thread only.
+     *
+     * @return a handle to the model, which is null if it could not be loaded
+     */
+    public static Future<ModelPredictor> preload(Context context) {
+        if (model == null) {
+            Context appContext = context.getApplicationContext();
+            FutureTask<ModelPredictor> task = new FutureTask<ModelPredictor>(() -> load(appContext)) {
+                @Override
+                protected void done() {
+                    mainHandler.post(ModelLoader::dispatch);
+                }
+            };
+            model = task;
+            ExecutorService loader = Executors.newSingleThreadExecutor();
+            loader.execute(task);
+            loader.shutdown();
+        }
+        return model;
+    }
+
+    private static ModelPredictor load(Context context) {
+        long start = SystemClock.elapsedRealtime();
+        ModelPredictor predictor = new ModelPredictor(context);
+        if (predictor.getClasses() == null) {
+            Log.e(TAG, "Terrain model could not be loaded");
+            predictor = null;
+        } else {
+            long loaded = SystemClock.elapsedRealtime();
+            predictor.warmUp(WARMUP_PREDICTIONS);
+            Log.d(TAG, "Model loaded in " + (loaded - start) + " ms, warmed up in "
+                    + (SystemClock.elapsedRealtime() - loaded) + " ms");
+        }
+        return predictor;
+    }
+
+    /**
+     * The model if loading has finished, null while it is still loading or if it
+     * failed. Never blocks, safe from any thread.
+     */
+    public static ModelPredictor getIfReady() {
+        if (model == null || !model.isDone()) return null;
+        try {
+            return model.get();
+        } catch (InterruptedException | ExecutionException e) {
+            Log.e(TAG, "Model loading failed", e);
+            return null;
+        }
+    }
+
+    public static boolean isReady() {
+        return getIfReady() != null;
+    }
+
+    /**
+     * Whether loading has finished without producing a model.
+     */
+    public static boolean hasFailed() {
+        return model != null && model.isDone() && getIfReady() == null;
+    }
+
+    /**
+     * Calls {@code callback} on the main thread once the model has loaded, on the
+     * next loop if it already has. Main thread only.
+     */
+    public static void whenReady(Context context, Callback callback) {
+        pending.add(callback);
+        if (preload(context).isDone()) {
+            mainHandler.post(ModelLoader::dispatch);
+        }
+    }
+
+    /**
+     * Drops a callback that has not been called yet. Main thread only.
+     */
+    public static void cancel(Callback callback) {
+        pending.remove(callback);
+    }
+
+    private static void dispatch() {
+        if (pending.isEmpty() || !model.isDone()) return;
+        ModelPredictor predictor = getIfReady();
+        List<Callback> callbacks = new ArrayList<>(pending);
+        pending.clear();
+        for (Callback callback : callbacks) {
+            callback.onModelReady(predictor);
+        }
+    }
+}
@@ -1,120 +1,128 @@
 package com.example.feetmap;
 
 import android.content.Context;
-import android.content.res.AssetManager;
+import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Random;
 
 public class ModelPredictor {
-    private JSONObject modelJson;
+    private static final String MODEL_ASSET = "forest-q.bin";
+    private static final String GENERATED_FOREST = "com.example.feetmap.GeneratedForest";
+
+    private QuantizedForest forest;
+    // Generated branches over the quantized forest's bins when the build produced them,
+    // the quantized forest's interpreter otherwise
+    private ForestEvaluator evaluator;
     private String[] classes;
     private String[] featureNames;
+    private float[] probabilities;
     
     public ModelPredictor(Context context) {
         try {
-            // Load the model from assets
-            AssetManager assetManager = context.getAssets();
-            InputStream inputStream = assetManager.open("model.json");
-            int size = inputStream.available();
-            byte[] buffer = new byte[size];
-            inputStream.read(buffer);
-            inputStream.close();
-            
-            // Convert to string and parse JSON
-            String jsonString = new String(buffer, StandardCharsets.UTF_8);
-            modelJson = new JSONObject(jsonString);
-            
-            // Load classes and feature names
-            JSONArray classesArray = modelJson.getJSONArray("classes");
-            classes = new String[classesArray.length()];
-            for (int i = 0; i < classesArray.length(); i++) {
-                classes[i] = classesArray.getString(i);
-            }
-            
-            JSONArray featuresArray = modelJson.getJSONArray("feature_names");
-            featureNames = new String[featuresArray.length()];
-            for (int i = 0; i < featuresArray.length(); i++) {
-                featureNames[i] = featuresArray.getString(i);
-            }
+            // Quantized binary generated from model.json at build time
+            forest = QuantizedForest.load(context.getAssets(), MODEL_ASSET);
+            classes = forest.getClasses();
+            featureNames = forest.getFeatureNames();
+            probabilities = new float[classes.length];
+            evaluator = loadEvaluator(forest);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
-    
-    private int traverseTree(JSONObject tree, Map<String, Double> features) {
+
+    private static ForestEvaluator loadEvaluator(QuantizedForest forest) {
         try {
-            JSONArray childrenLeft = tree.getJSONArray("children_left");
-            JSONArray childrenRight = tree.getJSONArray("children_right");
-            JSONArray feature = tree.getJSONArray("feature");
-            JSONArray threshold = tree.getJSONArray("threshold");
-            JSONArray value = tree.getJSONArray("value");
-            
-            int currentNode = 0;
-            while (childrenLeft.getInt(currentNode) != -1 || childrenRight.getInt(currentNode) != -1) {
-                int featureIndex = feature.getInt(currentNode);
-                double thresholdValue = threshold.getDouble(currentNode);
-                
-                if (features.get(featureNames[featureIndex]) <= thresholdValue) {
-                    currentNode = childrenLeft.getInt(currentNode);
-                } else {
-                    currentNode = childrenRight.getInt(currentNode);
-                }
-            }
-            
-            // Get the prediction from the leaf node
-            JSONArray nodeValue = value.getJSONArray(currentNode).getJSONArray(0);
-            return nodeValue.getDouble(0) > nodeValue.getDouble(1) ? 0 : 1;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0;
+            return (ForestEvaluator) Class.forName(GENERATED_FOREST)
+                    .getDeclaredConstructor(QuantizedForest.class).newInstance(forest);
+        } catch (ReflectiveOperationException e) {
+            Log.w("ModelPredictor", "Generated forest not available, using the quantized forest");
+            return forest;
         }
     }
     
-    public String predict(Map<String, Double> features) {
-        try {
-            JSONArray estimators = modelJson.getJSONArray("estimators");
-            int[] votes = new int[classes.length];
-            
-            // Get predictions from all trees
-            for (int i = 0; i < estimators.length(); i++) {
-                int prediction = traverseTree(estimators.getJSONObject(i), features);
-                votes[prediction]++;
+    /**
+     * Class probabilities for {@code features}, ordered as {@link #getFeatureNames()},
+     * written into {@code out} (one entry per class).
+     */
+    public void predictProba(float[] features, float[] out) {
+        evaluator.predictProba(features, out);
+    }
+
+    /**
+     * Most probable class for {@code features}, ordered as {@link #getFeatureNames()}.
+     * Not thread-safe, concurrent callers should use {@link #predictProba}.
+     */
+    public String predict(float[] features) {
+        evaluator.predictProba(features, probabilities);
+        int best = 0;
+        for (int c = 1; c < probabilities.length; c++) {
+            if (probabilities[c] > probabilities[best]) best = c;
+        }
+        return classes[best];
+    }
+
+    /**
+     * A vector laid out for this model, meant to be reused for every window.
+     */
+    public FeatureVector newFeatureVector() {
+        return new FeatureVector(featureNames);
+    }
+
+    public void predictProba(FeatureVector features, float[] out) {
+        predictProba(features.values(), out);
+    }
+
+    /**
+     * Early-exit evaluation, see
+     * {@link ForestEvaluator#predictProba(float[], float[], boolean, float)}.
+     *
+     * @return the number of trees evaluated
+     */
+    public int predictProba(FeatureVector features, float[] out,
+                            boolean exitWhenDecided, float confidenceBound) {
+        return evaluator.predictProba(features.values(), out, exitWhenDecided, confidenceBound);
+    }
+
+    public String predict(FeatureVector features) {
+        return predict(features.values());
+    }
+
+    /**
+     * Batch and parallel classification of whole sessions, see {@link BatchPredictor}.
+     */
+    public BatchPredictor newBatchPredictor() {
+        return new BatchPredictor(forest);
+    }
+
+    /**
+     * Runs {@code predictions} throwaway windows through both the full and the
+     * early-exit evaluation, so the JIT compiles them before live data arrives.
+     */
+    public void warmUp(int predictions) {
+        // Accelerometer statistics in m/s^2, roughly the range seen while walking
+        Random random = new Random(42);
+        FeatureVector features = newFeatureVector();
+        float[] values = features.values();
+        float[] out = new float[classes.length];
+        for (int i = 0; i < predictions; i++) {
+            for (int f = 0; f < values.length; f++) {
+                values[f] = (float) (random.nextGaussian() * 6.0);
             }
-            
-            // Return the majority vote
-            return classes[votes[0] > votes[1] ? 0 : 1];
-        } catch (Exception e) {
-            e.printStackTrace();
-            return classes[0];
+            predictProba(features, out);
+            // Any bound below 1 takes the early-exit path
+            predictProba(features, out, true, 0.8f);
         }
     }
-    
-    // Helper method to create feature map
-    public static Map<String, Double> createFeatureMap(
-            double max_x, double max_y, double max_z,
-            double min_x, double min_y, double min_z,
-            double median_x, double median_y, double median_z,
-            double mean_x, double mean_y, double mean_z) {
-        
-        Map<String, Double> features = new HashMap<>();
-        features.put("max_x", max_x);
-        features.put("max_y", max_y);
-        features.put("max_z", max_z);
-        features.put("min_x", min_x);
-        features.put("min_y", min_y);
-        features.put("min_z", min_z);
-        features.put("median_x", median_x);
-        features.put("median_y", median_y);
-        features.put("median_z", median_z);
-        features.put("mean_x", mean_x);
-        features.put("mean_y", mean_y);
-        features.put("mean_z", mean_z);
-        return features;
+
+    public int getTreeCount() {
+        return forest.getTreeCount();
+    }
+
+    public String[] getClasses() {
+        return classes;
+    }
+
+    public String[] getFeatureNames() {
+        return featureNames;
     }
-} 
\ No newline at end of file
+}
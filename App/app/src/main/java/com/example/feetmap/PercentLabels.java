@@ -0,0 +1,25 @@
+package com.example.feetmap;
+
+/**
+ * "12.3%" labels for fractions in 0..1, formatted once per distinct tenth of a
+ * percent and reused, so views can show them without formatting while drawing.
+ */
+public final class PercentLabels {
+    private static final int STEPS = 1000;
+    private static final String[] CACHE = new String[STEPS + 1];
+
+    private PercentLabels() {}
+
+    public static String of(float fraction) {
+        int index = Math.round(fraction * STEPS);
+        if (index < 0 || index > STEPS) {
+            return String.format("%.1f%%", fraction * 100);
+        }
+        String label = CACHE[index];
+        if (label == null) {
+            label = String.format("%.1f%%", index / 10f);
+            CACHE[index] = label;
+        }
+        return label;
+    }
+}
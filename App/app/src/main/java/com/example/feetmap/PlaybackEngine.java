@@ -0,0 +1,150 @@
+package com.example.feetmap;
+
+/**
+ * Replays a recorded session from its {@link RunColumns}.
+ *
+ * The display clock paces playback: every {@link RenderScheduler} frame advances
+ * the sample clock by the elapsed frame time times the speed, and the listener
+ * gets the run linearly interpolated at that instant. Slow speeds therefore glide
+ * between samples and fast ones skip them, with one callback per frame either way.
+ */
+public class PlaybackEngine implements RenderScheduler.FrameListener {
+
+    public interface Listener {
+        /**
+         * @param values every channel interpolated at {@code timestamp}, indexed by
+         *               the {@link RunColumns} channel constants. Reused between frames.
+         */
+        void onPlaybackFrame(long timestamp, float[] values);
+
+        void onPlaybackStateChanged(boolean playing);
+    }
+
+    public static final float MIN_SPEED = 0.25f;
+    public static final float MAX_SPEED = 16f;
+    // Longer gaps (app paused, dropped frames) are not played back as a jump
+    private static final long MAX_FRAME_STEP_NANOS = 250_000_000L;
+
+    private final RenderScheduler scheduler;
+    private final RunColumns columns;
+    private final float[] values = new float[RunColumns.CHANNEL_COUNT];
+    private Listener listener;
+    private float speed = 1f;
+    private boolean playing;
+    private boolean pendingFrame;
+    private double position;
+    private long lastFrameNanos = -1;
+    // First sample at or after position, only moves forward while playing
+    private int index;
+
+    public PlaybackEngine(RenderScheduler scheduler, RunColumns columns) {
+        this.scheduler = scheduler;
+        this.columns = columns;
+        scheduler.addFrameListener(this);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(float speed) {
+        this.speed = Math.max(MIN_SPEED, Math.min(MAX_SPEED, speed));
+    }
+
+    public long getPosition() {
+        return (long) position;
+    }
+
+    public void play() {
+        if (playing || columns.isEmpty()) return;
+        // Start over when the end was reached
+        if (position >= columns.duration()) {
+            seek(columns.timestampAt(0));
+        }
+        playing = true;
+        lastFrameNanos = -1;
+        scheduler.requestFrame();
+        if (listener != null) {
+            listener.onPlaybackStateChanged(true);
+        }
+    }
+
+    public void pause() {
+        if (!playing) return;
+        playing = false;
+        if (listener != null) {
+            listener.onPlaybackStateChanged(false);
+        }
+    }
+
+    /**
+     * Jumps to {@code timestamp}. The frame at the new position is delivered on the
+     * next vsync whether or not playback is running.
+     */
+    public void seek(long timestamp) {
+        if (columns.isEmpty()) return;
+        position = Math.max(columns.timestampAt(0), Math.min(timestamp, columns.duration()));
+        index = columns.indexAtOrAfter((long) Math.ceil(position));
+        pendingFrame = true;
+        scheduler.requestFrame();
+    }
+
+    @Override
+    public void onFrame(long frameTimeNanos) {
+        if ((!playing && !pendingFrame) || columns.isEmpty()) return;
+        pendingFrame = false;
+
+        boolean finished = false;
+        if (playing) {
+            if (lastFrameNanos >= 0) {
+                long step = Math.min(frameTimeNanos - lastFrameNanos, MAX_FRAME_STEP_NANOS);
+                position += step / 1_000_000.0 * speed;
+            }
+            lastFrameNanos = frameTimeNanos;
+
+            long end = columns.duration();
+            if (position >= end) {
+                position = end;
+                finished = true;
+            }
+        }
+
+        interpolate();
+        if (listener != null) {
+            listener.onPlaybackFrame((long) position, values);
+        }
+
+        if (finished) {
+            pause();
+        } else if (playing) {
+            scheduler.requestFrame();
+        }
+    }
+
+    private void interpolate() {
+        long[] timestamps = columns.timestamps();
+        int size = columns.size();
+        // Each frame only moves a few samples forward, a linear walk beats a search
+        while (index < size && timestamps[index] < position) {
+            index++;
+        }
+
+        int after = Math.min(index, size - 1);
+        int before = Math.max(after - 1, 0);
+        long span = timestamps[after] - timestamps[before];
+        float t = span > 0 ? (float) ((position - timestamps[before]) / span) : 1f;
+        t = Math.max(0f, Math.min(1f, t));
+        for (int channel = 0; channel < RunColumns.CHANNEL_COUNT; channel++) {
+            float[] column = columns.channel(channel);
+            values[channel] = column[before] + (column[after] - column[before]) * t;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.feetmap;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.RectF;
+import android.graphics.Shader;
+
+/**
+ * Continuous pressure field interpolated from the three FSR readings.
+ *
+ * The field lives on a coarse grid over the foot image. Inverse-distance weights
+ * from every cell to every sensor are computed once per layout, so an update is
+ * three multiply-adds and a color table lookup per cell, followed by one small
+ * texture upload. The bitmap is exposed as a filtered {@link BitmapShader} that
+ * stretches it over the foot, so the GPU does the smoothing between cells.
+ */
+public class PressureField {
+    private static final int GRID_COLUMNS = 24;
+    private static final int SENSOR_COUNT = 3;
+    private static final int LUT_SIZE = 256;
+
+    // Sensor positions as fractions of the foot image, heel / mid / toe
+    private static final float[] SENSOR_X = {0.5f, 0.5f, 0.5f};
+    private static final float[] SENSOR_Y = {0.85f, 0.525f, 0.175f};
+
+    private final int[] colorTable = new int[LUT_SIZE];
+    private final Matrix shaderMatrix = new Matrix();
+    private int columns;
+    private int rows;
+    private float[] weights = new float[0];
+    private int[] pixels = new int[0];
+    private Bitmap fieldBitmap;
+    private BitmapShader shader;
+
+    public PressureField() {
+        for (int i = 0; i < LUT_SIZE; i++) {
+            colorTable[i] = colorFor(i / (float) (LUT_SIZE - 1));
+        }
+    }
+
+    /**
+     * Blue to red with opacity rising to 70%, matching the old per-section colors.
+     */
+    private static int colorFor(float value) {
+        int alpha = (int) (255 * value * 0.7f);
+        int blue = (int) (255 * (1 - value));
+        int red = (int) (255 * value);
+        return Color.argb(alpha, red, 0, blue);
+    }
+
+    /**
+     * Sizes the grid to the aspect ratio of {@code imageRect} and precomputes the
+     * interpolation weights.
+     */
+    public void layout(RectF imageRect) {
+        if (imageRect.width() <= 0 || imageRect.height() <= 0) return;
+
+        columns = GRID_COLUMNS;
+        rows = Math.max(1, Math.round(GRID_COLUMNS * imageRect.height() / imageRect.width()));
+        int cells = columns * rows;
+        weights = new float[cells * SENSOR_COUNT];
+        pixels = new int[cells];
+
+        float aspect = imageRect.height() / imageRect.width();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                float u = (column + 0.5f) / columns;
+                float v = (row + 0.5f) / rows;
+                int base = (row * columns + column) * SENSOR_COUNT;
+
+                // Shepard interpolation, distances measured in image proportions
+                float total = 0f;
+                for (int s = 0; s < SENSOR_COUNT; s++) {
+                    float dx = u - SENSOR_X[s];
+                    float dy = (v - SENSOR_Y[s]) * aspect;
+                    float w = 1f / (dx * dx + dy * dy + 1e-4f);
+                    weights[base + s] = w;
+                    total += w;
+                }
+                for (int s = 0; s < SENSOR_COUNT; s++) {
+                    weights[base + s] /= total;
+                }
+            }
+        }
+
+        if (fieldBitmap != null) {
+            fieldBitmap.recycle();
+        }
+        fieldBitmap = Bitmap.createBitmap(columns, rows, Bitmap.Config.ARGB_8888);
+        shader = new BitmapShader(fieldBitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+        shaderMatrix.setScale(imageRect.width() / columns, imageRect.height() / rows);
+        shaderMatrix.postTranslate(imageRect.left, imageRect.top);
+        shader.setLocalMatrix(shaderMatrix);
+    }
+
+    public boolean isReady() {
+        return shader != null;
+    }
+
+    /**
+     * Shader painting the current field over the foot image.
+     */
+    public Shader getShader() {
+        return shader;
+    }
+
+    /**
+     * Recomputes the field from normalized [heel, mid, toe] values in 0..1.
+     */
+    public void update(float heel, float mid, float toe) {
+        if (fieldBitmap == null) return;
+
+        int cells = columns * rows;
+        float[] w = weights;
+        for (int cell = 0, base = 0; cell < cells; cell++, base += SENSOR_COUNT) {
+            float value = w[base] * heel + w[base + 1] * mid + w[base + 2] * toe;
+            int index = (int) (value * (LUT_SIZE - 1));
+            pixels[cell] = colorTable[Math.max(0, Math.min(LUT_SIZE - 1, index))];
+        }
+        fieldBitmap.setPixels(pixels, 0, columns, 0, 0, columns, rows);
+    }
+
+    public void recycle() {
+        if (fieldBitmap != null) {
+            fieldBitmap.recycle();
+            fieldBitmap = null;
+        }
+        shader = null;
+    }
+}
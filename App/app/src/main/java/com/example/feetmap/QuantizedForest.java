@@ -0,0 +1,354 @@
+package com.example.feetmap;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact, quantized form of the random forest.
+ *
+ * Every threshold a feature is split on goes into a sorted per-feature cut table,
+ * and nodes store the index of their cut instead of the value. A window is binned
+ * once, each feature becoming the number of its cuts below the value, after which
+ * {@code x <= cut[k]} is exactly {@code bin <= k}, so traversal compares small
+ * integers and reaches the same leaves as the full-precision forest. Node links
+ * are 16-bit, features and bins 8-bit (16-bit bins if a feature has more than 255
+ * cuts) and leaf class distributions are bytes in units of 1/255.
+ *
+ * Written as {@code forest-q.bin} by the {@code generateForestModel} Gradle task;
+ * this is the model asset the app ships.
+ *
+ * Live windows are evaluated by {@code GeneratedForest}, which the
+ * {@code generateForestSource} task compiles from this same quantized model: the
+ * tree structure becomes nested branches over the bins, while the cut tables and
+ * the leaf table are still read from here. That code is the price of its speed,
+ * about 55 KB of dex for the 50-tree model next to the 38 KB asset. The
+ * interpreter in this class is the fallback when the generated class is missing,
+ * and {@link BatchPredictor} uses it for whole sessions.
+ */
+public class QuantizedForest implements ForestEvaluator {
+    private static final int MAGIC = 0x464d5251; // "FMRQ"
+    private static final int VERSION = 1;
+    private static final float LEAF_SCALE = 255f;
+
+    private final String[] classes;
+    private final String[] featureNames;
+    private final int classCount;
+    private final float[][] cuts;
+    private final short[] roots;
+    // Leaves have a negative left link and their leaf table row in right
+    private final short[] left;
+    private final short[] right;
+    private final byte[] feature;
+    private final byte[] narrowBins;
+    private final short[] wideBins;
+    private final byte[] leafValues;
+    private final ThreadLocal<Window> windows;
+
+    private QuantizedForest(String[] classes, String[] featureNames, float[][] cuts, short[] roots,
+                            short[] left, short[] right, byte[] feature, byte[] narrowBins,
+                            short[] wideBins, byte[] leafValues) {
+        this.classes = classes;
+        this.featureNames = featureNames;
+        this.classCount = classes.length;
+        this.cuts = cuts;
+        this.roots = roots;
+        this.left = left;
+        this.right = right;
+        this.feature = feature;
+        this.narrowBins = narrowBins;
+        this.wideBins = wideBins;
+        this.leafValues = leafValues;
+        windows = new ThreadLocal<Window>() {
+            @Override
+            protected Window initialValue() {
+                return new Window();
+            }
+        };
+    }
+
+    /**
+     * Per-thread state of one window being evaluated, shared with
+     * {@code GeneratedForest} so both sum and scale leaves the same way.
+     */
+    final class Window {
+        final short[] bins = new short[featureNames.length];
+        // Leaf bytes summed over the trees used so far
+        private final int[] sums = new int[classCount];
+        // The sums in trees, as the stopping rule expects
+        private final float[] votes = new float[classCount];
+
+        /**
+         * Adds the class distribution of row {@code leaf} of the leaf table.
+         */
+        void add(int leaf) {
+            int values = leaf * classCount;
+            for (int c = 0; c < classCount; c++) {
+                sums[c] += leafValues[values + c] & 0xFF;
+            }
+        }
+
+        boolean canStop(int used, boolean exitWhenDecided, float confidenceBound) {
+            for (int c = 0; c < classCount; c++) {
+                votes[c] = sums[c] / LEAF_SCALE;
+            }
+            return EarlyExit.canStop(votes, classCount, used, roots.length, exitWhenDecided, confidenceBound);
+        }
+
+        /**
+         * Writes the mean over the {@code used} trees added. The leaf bytes are
+         * summed as integers and scaled once, the same arithmetic as
+         * {@link #predictProbaBinned}.
+         */
+        void finish(int used, float[] out) {
+            float scale = 1f / (LEAF_SCALE * used);
+            for (int c = 0; c < classCount; c++) {
+                out[c] = sums[c] * scale;
+            }
+        }
+    }
+
+    /**
+     * This thread's {@link Window}, with {@code features} binned and no trees added.
+     */
+    Window startWindow(float[] features) {
+        Window window = windows.get();
+        bin(features, window.bins);
+        for (int c = 0; c < classCount; c++) {
+            window.sums[c] = 0;
+        }
+        return window;
+    }
+
+    /**
+     * Memory-maps a quantized forest asset, which must be stored uncompressed.
+     */
+    public static QuantizedForest load(AssetManager assets, String name) throws IOException {
+        try (AssetFileDescriptor descriptor = assets.openFd(name);
+             FileInputStream input = descriptor.createInputStream()) {
+            MappedByteBuffer buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    descriptor.getStartOffset(), descriptor.getLength());
+            return read(buffer);
+        }
+    }
+
+    public static QuantizedForest read(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a quantized forest model file");
+        }
+        String[] classes = readStrings(buffer);
+        String[] featureNames = readStrings(buffer);
+        float[][] cuts = new float[featureNames.length][];
+        for (int f = 0; f < cuts.length; f++) {
+            cuts[f] = new float[buffer.getInt()];
+            buffer.asFloatBuffer().get(cuts[f]);
+            buffer.position(buffer.position() + cuts[f].length * 4);
+        }
+
+        int treeCount = buffer.getInt();
+        int nodeCount = buffer.getInt();
+        int leafCount = buffer.getInt();
+        boolean wide = buffer.get() != 0;
+
+        short[] roots = readShorts(buffer, treeCount);
+        short[] left = readShorts(buffer, nodeCount);
+        short[] right = readShorts(buffer, nodeCount);
+        byte[] feature = readBytes(buffer, nodeCount);
+        byte[] narrowBins = wide ? null : readBytes(buffer, nodeCount);
+        short[] wideBins = wide ? readShorts(buffer, nodeCount) : null;
+        byte[] leafValues = readBytes(buffer, leafCount * classes.length);
+        return new QuantizedForest(classes, featureNames, cuts, roots, left, right, feature,
+                narrowBins, wideBins, leafValues);
+    }
+
+    private static String[] readStrings(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static short[] readShorts(ByteBuffer buffer, int count) {
+        short[] values = new short[count];
+        buffer.asShortBuffer().get(values);
+        buffer.position(buffer.position() + count * 2);
+        return values;
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer, int count) {
+        byte[] values = new byte[count];
+        buffer.get(values);
+        return values;
+    }
+
+    public String[] getClasses() {
+        return classes;
+    }
+
+    public String[] getFeatureNames() {
+        return featureNames;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public int getFeatureCount() {
+        return featureNames.length;
+    }
+
+    public int getTreeCount() {
+        return roots.length;
+    }
+
+    /**
+     * Sorted thresholds {@code feature} is split on.
+     */
+    public float[] getCuts(int feature) {
+        return cuts[feature];
+    }
+
+    /**
+     * Bytes held by the forest's arrays.
+     */
+    public int getMemoryBytes() {
+        int bytes = roots.length * 2 + left.length * 2 + right.length * 2 + feature.length
+                + (narrowBins != null ? narrowBins.length : wideBins.length * 2) + leafValues.length;
+        for (float[] table : cuts) {
+            bytes += table.length * 4;
+        }
+        return bytes;
+    }
+
+    /**
+     * Maps each feature to the number of its cut points below the value.
+     */
+    public void bin(float[] features, short[] bins) {
+        bin(features, 0, bins, 0);
+    }
+
+    private void bin(float[] features, int featureOffset, short[] bins, int binOffset) {
+        for (int f = 0; f < cuts.length; f++) {
+            float[] table = cuts[f];
+            float value = features[featureOffset + f];
+            // Branch-free lower bound: the answer stays within base..base+n, and the
+            // select compiles to a conditional move instead of an unpredictable branch
+            int base = 0;
+            int n = table.length;
+            while (n > 1) {
+                int half = n >>> 1;
+                base = table[base + half] < value ? base + half : base;
+                n -= half;
+            }
+            bins[binOffset + f] = (short) (n == 0 || !(table[base] < value) ? base : base + 1);
+        }
+    }
+
+    @Override
+    public void predictProba(float[] features, float[] out) {
+        short[] bins = windows.get().bins;
+        bin(features, bins);
+        predictProbaBinned(bins, out);
+    }
+
+    /**
+     * Class probabilities for a window already passed through {@link #bin}.
+     */
+    public void predictProbaBinned(short[] bins, float[] out) {
+        for (int c = 0; c < classCount; c++) {
+            out[c] = 0f;
+        }
+        for (int t = 0; t < roots.length; t++) {
+            int node = narrowBins != null ? walkNarrow(bins, 0, roots[t]) : walkWide(bins, 0, roots[t]);
+            int values = right[node] * classCount;
+            for (int c = 0; c < classCount; c++) {
+                out[c] += leafValues[values + c] & 0xFF;
+            }
+        }
+        float scale = 1f / (LEAF_SCALE * roots.length);
+        for (int c = 0; c < classCount; c++) {
+            out[c] *= scale;
+        }
+    }
+
+    /**
+     * With early exit disabled the result is bit-identical to
+     * {@link #predictProba(float[], float[])}, see {@link Window#finish}.
+     */
+    @Override
+    public int predictProba(float[] features, float[] out, boolean exitWhenDecided, float confidenceBound) {
+        Window window = startWindow(features);
+        short[] bins = window.bins;
+        int trees = roots.length;
+        boolean enabled = exitWhenDecided || confidenceBound <= 1f;
+        int used = 0;
+        while (used < trees) {
+            int node = narrowBins != null ? walkNarrow(bins, 0, roots[used]) : walkWide(bins, 0, roots[used]);
+            window.add(right[node]);
+            used++;
+            if (enabled && used < trees && EarlyExit.isCheckpoint(used)
+                    && window.canStop(used, exitWhenDecided, confidenceBound)) {
+                break;
+            }
+        }
+        window.finish(used, out);
+        return used;
+    }
+
+    /**
+     * Class probabilities for windows {@code from..to-1} of a row-major matrix with
+     * {@link #getFeatureCount()} features per window, written to the matching rows
+     * of {@code out}. The windows are binned first, then trees are the outer loop,
+     * so each tree's nodes stay in cache while every window walks it.
+     */
+    public void predictProbaRange(float[] windows, int from, int to, float[] out) {
+        int features = featureNames.length;
+        short[] bins = new short[(to - from) * features];
+        for (int w = from; w < to; w++) {
+            bin(windows, w * features, bins, (w - from) * features);
+        }
+
+        for (int i = from * classCount; i < to * classCount; i++) {
+            out[i] = 0f;
+        }
+        for (int t = 0; t < roots.length; t++) {
+            int root = roots[t];
+            for (int w = from; w < to; w++) {
+                int base = (w - from) * features;
+                int node = narrowBins != null ? walkNarrow(bins, base, root) : walkWide(bins, base, root);
+                int values = right[node] * classCount;
+                int result = w * classCount;
+                for (int c = 0; c < classCount; c++) {
+                    out[result + c] += leafValues[values + c] & 0xFF;
+                }
+            }
+        }
+        float scale = 1f / (LEAF_SCALE * roots.length);
+        for (int i = from * classCount; i < to * classCount; i++) {
+            out[i] *= scale;
+        }
+    }
+
+    private int walkNarrow(short[] bins, int base, int node) {
+        while (left[node] >= 0) {
+            node = bins[base + feature[node]] <= (narrowBins[node] & 0xFF) ? left[node] : right[node];
+        }
+        return node;
+    }
+
+    private int walkWide(short[] bins, int base, int node) {
+        while (left[node] >= 0) {
+            node = bins[base + feature[node]] <= (wideBins[node] & 0xFFFF) ? left[node] : right[node];
+        }
+        return node;
+    }
+}
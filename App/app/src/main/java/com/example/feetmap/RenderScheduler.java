@@ -0,0 +1,116 @@
+package com.example.feetmap;
+
+import android.content.Context;
+import android.os.PowerManager;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Paces redraws of live views to the display refresh instead of to sample arrival.
+ *
+ * Data paths update their state and call {@link #requestFrame()}; the scheduler then
+ * calls every registered {@link FrameListener} once on the next vsync, no matter how
+ * many samples arrived in between. In low-power mode frames are capped at 30 fps.
+ */
+public class RenderScheduler implements Choreographer.FrameCallback {
+
+    public interface FrameListener {
+        void onFrame(long frameTimeNanos);
+    }
+
+    private static final long LOW_POWER_FRAME_INTERVAL_NANOS = 1_000_000_000L / 30;
+    // Vsync timestamps jitter slightly, so accept a frame that is a little early
+    private static final long FRAME_SLACK_NANOS = 2_000_000L;
+
+    private final Choreographer choreographer;
+    private final List<FrameListener> listeners = new ArrayList<>();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private final AtomicBoolean posted = new AtomicBoolean(false);
+    private volatile boolean running = true;
+    private volatile boolean lowPowerMode = false;
+    private long lastFrameTimeNanos;
+
+    /**
+     * Must be created on the UI thread, frame callbacks run on its looper.
+     */
+    public RenderScheduler() {
+        choreographer = Choreographer.getInstance();
+    }
+
+    public void addFrameListener(FrameListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeFrameListener(FrameListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void setLowPowerMode(boolean lowPowerMode) {
+        this.lowPowerMode = lowPowerMode;
+    }
+
+    public boolean isLowPowerMode() {
+        return lowPowerMode;
+    }
+
+    /**
+     * Enables low-power mode when the system battery saver is on.
+     */
+    public void syncWithPowerSaveMode(Context context) {
+        PowerManager pm = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        setLowPowerMode(pm != null && pm.isPowerSaveMode());
+    }
+
+    /**
+     * Marks the state dirty and schedules a frame. Safe to call from any thread and
+     * any number of times per frame.
+     */
+    public void requestFrame() {
+        dirty.set(true);
+        postIfNeeded();
+    }
+
+    public void start() {
+        running = true;
+        if (dirty.get()) {
+            postIfNeeded();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        choreographer.removeFrameCallback(this);
+        posted.set(false);
+    }
+
+    private void postIfNeeded() {
+        if (running && posted.compareAndSet(false, true)) {
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        posted.set(false);
+        if (!running || !dirty.get()) return;
+
+        if (lowPowerMode && frameTimeNanos - lastFrameTimeNanos
+                < LOW_POWER_FRAME_INTERVAL_NANOS - FRAME_SLACK_NANOS) {
+            // Too early for the capped rate, keep the state dirty and wait a vsync
+            postIfNeeded();
+            return;
+        }
+
+        dirty.set(false);
+        lastFrameTimeNanos = frameTimeNanos;
+
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onFrame(frameTimeNanos);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.feetmap;
 
 import android.graphics.Color;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.net.Uri;
 import android.os.Bundle;
@@ -9,6 +10,7 @@ import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.Button;
 import android.widget.ImageButton;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -25,11 +27,14 @@ import com.github.mikephil.charting.data.LineData;
 import com.github.mikephil.charting.data.LineDataSet;
 import com.github.mikephil.charting.listener.ChartTouchListener;
 import com.github.mikephil.charting.listener.OnChartGestureListener;
+import com.github.mikephil.charting.utils.ViewPortHandler;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 public class RunAnalysisFragment extends Fragment {
 
@@ -40,8 +45,43 @@ public class RunAnalysisFragment extends Fragment {
     private LineChart fsrChart;
     private TextView tvScore;
     private ImageButton btnInfo;
-
-    private List<RunningDataPoint> runData = new ArrayList<>();
+    private FootHeatmapView scrubHeatmap;
+    private TextView tvScrubValues;
+    private ImageButton btnPlay;
+    private Button btnSpeed;
+
+    private final RunColumns columns = new RunColumns();
+
+    // Charts and timeline all follow one shared viewport, updated once per frame
+    private RenderScheduler renderScheduler;
+    private ChartViewport viewport;
+    private ScrubCursor scrubCursor;
+    private final float[] previewValues = new float[RunColumns.CHANNEL_COUNT];
+    private final float[] previewFsrValues = new float[3];
+
+    // Playback replays the run through the preview, charts and timeline
+    private static final float[] PLAYBACK_SPEEDS = {0.25f, 0.5f, 1f, 2f, 4f, 8f, 16f};
+    private static final String[] PLAYBACK_SPEED_LABELS = {"0.25×", "0.5×", "1×", "2×", "4×", "8×", "16×"};
+    // Page the charts forward once the cursor passes this fraction of the window
+    private static final float PLAYBACK_PAGE_AT = 0.8f;
+    private static final float PLAYBACK_PAGE_TO = 0.2f;
+    private PlaybackEngine playback;
+    private int speedIndex = 2;
+    private final Matrix viewportMatrix = new Matrix();
+    private final float[] matrixValues = new float[9];
+
+    private static final int[] IMU_CHANNELS = {RunColumns.ACC_X, RunColumns.ACC_Y, RunColumns.ACC_Z};
+    private static final int[] FSR_CHANNELS = {RunColumns.FSR_HEEL, RunColumns.FSR_MID, RunColumns.FSR_TOE};
+    // LTTB keeps the shape of the acceleration traces, min/max keeps every pressure peak
+    private static final ChartDownsampler.Mode IMU_MODE = ChartDownsampler.Mode.LTTB;
+    private static final ChartDownsampler.Mode FSR_MODE = ChartDownsampler.Mode.MIN_MAX;
+    // Charts only hold entries for the visible window, recycled through one pool
+    private final EntryPool entryPool = new EntryPool();
+    private ColumnChartAdapter imuAdapter;
+    private ColumnChartAdapter fsrAdapter;
+    // Line geometry is built off the UI thread, drags only translate it
+    private TessellatedLineRenderer imuRenderer;
+    private TessellatedLineRenderer fsrRenderer;
 
     // Create via newInstance so we can pass in the CSV Uri
     public static RunAnalysisFragment newInstance(String csvUriString) {
@@ -69,11 +109,28 @@ public class RunAnalysisFragment extends Fragment {
                              Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_run_analysis, container, false);
 
+        renderScheduler = new RenderScheduler();
+        scrubCursor = new ScrubCursor(renderScheduler, columns);
+        playback = new PlaybackEngine(renderScheduler, columns);
+        viewport = new ChartViewport(renderScheduler);
+
         timelineView = view.findViewById(R.id.timelineView);
         imuChart = view.findViewById(R.id.imuAnalysisChart);
         fsrChart = view.findViewById(R.id.fsrAnalysisChart);
         tvScore = view.findViewById(R.id.tvScore);
         btnInfo = view.findViewById(R.id.btnInfo);
+        scrubHeatmap = view.findViewById(R.id.scrubHeatmap);
+        scrubHeatmap.setFootImage(R.mipmap.footpic);
+        tvScrubValues = view.findViewById(R.id.tvScrubValues);
+        btnPlay = view.findViewById(R.id.btnPlay);
+        btnSpeed = view.findViewById(R.id.btnSpeed);
+
+        imuAdapter = new ColumnChartAdapter(imuChart, columns, IMU_CHANNELS, IMU_MODE, entryPool);
+        fsrAdapter = new ColumnChartAdapter(fsrChart, columns, FSR_CHANNELS, FSR_MODE, entryPool);
+        imuRenderer = new TessellatedLineRenderer(imuChart);
+        fsrRenderer = new TessellatedLineRenderer(fsrChart);
+        imuChart.setRenderer(imuRenderer);
+        fsrChart.setRenderer(fsrRenderer);
 
         // Add logging for button finding
         if (btnInfo == null) {
@@ -91,6 +148,7 @@ public class RunAnalysisFragment extends Fragment {
 
         setupCharts();
         setupTimelineView();
+        setupPlayback();
 
         // Setup info button click listener
         btnInfo.setOnClickListener(v -> showScoreInfoDialog());
@@ -98,6 +156,18 @@ public class RunAnalysisFragment extends Fragment {
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        playback.pause();
+        renderScheduler.stop();
+        imuRenderer.release();
+        fsrRenderer.release();
+        imuAdapter.release();
+        fsrAdapter.release();
+        entryPool.clear();
+        super.onDestroyView();
+    }
+
     private void setupCharts() {
         // Common settings for both charts
         for (LineChart chart : new LineChart[]{imuChart, fsrChart}) {
@@ -136,32 +206,59 @@ public class RunAnalysisFragment extends Fragment {
 
                 @Override
                 public void onChartScale(MotionEvent me, float scaleX, float scaleY) {
-                    syncCharts(chart);
+                    viewport.setVisibleRange(chart.getLowestVisibleX(), chart.getHighestVisibleX());
                 }
 
                 @Override
                 public void onChartTranslate(MotionEvent me, float dX, float dY) {
-                    syncCharts(chart);
+                    viewport.setVisibleRange(chart.getLowestVisibleX(), chart.getHighestVisibleX());
                 }
             });
         }
+
+        viewport.addListener((from, to) -> applyViewport(imuChart, from, to));
+        viewport.addListener((from, to) -> applyViewport(fsrChart, from, to));
     }
 
-    private void syncCharts(LineChart sourceChart) {
-        LineChart targetChart = (sourceChart == imuChart) ? fsrChart : imuChart;
-        targetChart.setVisibleXRangeMaximum(sourceChart.getVisibleXRange());
-        targetChart.setVisibleXRangeMinimum(sourceChart.getVisibleXRange());
-        targetChart.moveViewToX(sourceChart.getLowestVisibleX());
-        targetChart.invalidate();
+    /**
+     * Moves a chart to the shared viewport with a single matrix update, then refreshes
+     * its level of detail. The chart that produced the gesture is already there and
+     * only gets the refresh.
+     */
+    private void applyViewport(LineChart chart, float from, float to) {
+        ViewPortHandler handler = chart.getViewPortHandler();
+        float axisRange = chart.getXRange();
+        if (axisRange <= 0 || handler.contentWidth() <= 0) return;
+
+        float tolerance = (to - from) * 0.001f;
+        if (Math.abs(chart.getLowestVisibleX() - from) > tolerance
+                || Math.abs(chart.getHighestVisibleX() - to) > tolerance) {
+            float scaleX = axisRange / (to - from);
+            viewportMatrix.set(handler.getMatrixTouch());
+            viewportMatrix.getValues(matrixValues);
+            matrixValues[Matrix.MSCALE_X] = scaleX;
+            matrixValues[Matrix.MTRANS_X] =
+                    -(from - chart.getXChartMin()) / axisRange * handler.contentWidth() * scaleX;
+            viewportMatrix.setValues(matrixValues);
+            handler.refresh(viewportMatrix, chart, true);
+        }
+        ColumnChartAdapter adapter = chart == imuChart ? imuAdapter : fsrAdapter;
+        if (adapter.refresh()) {
+            (chart == imuChart ? imuRenderer : fsrRenderer).onDataChanged();
+        }
     }
 
     private void setupTimelineView() {
-        timelineView.setOnTimeSelectListener(this::updateChartsPosition);
+        // Touches only record the time, the scrub itself runs once per frame
+        timelineView.setOnTimeSelectListener(scrubCursor::scrubTo);
+        scrubCursor.setListener(this::onScrub);
+        viewport.addListener((from, to) ->
+                timelineView.setVisibleWindow((long) (from * 1000f), (long) (to * 1000f)));
     }
 
     private void loadRunData(Uri uri) {
         try {
-            runData.clear();
+            columns.clear();
             BufferedReader reader = new BufferedReader(
                     new InputStreamReader(requireContext().getContentResolver().openInputStream(uri))
             );
@@ -178,22 +275,20 @@ public class RunAnalysisFragment extends Fragment {
                 String[] values = line.split(",");
                 long timestamp = Long.parseLong(values[0]);
 
-                RunningDataPoint point = new RunningDataPoint(
-                        timestamp,
+                float fsr1 = Float.parseFloat(values[4]);
+                float fsr2 = Float.parseFloat(values[5]);
+                float fsr3 = Float.parseFloat(values[6]);
+
+                columns.add(timestamp,
                         Float.parseFloat(values[1]),
                         Float.parseFloat(values[2]),
                         Float.parseFloat(values[3]),
-                        Float.parseFloat(values[4]),
-                        Float.parseFloat(values[5]),
-                        Float.parseFloat(values[6])
-                );
-
-                runData.add(point);
+                        fsr1, fsr2, fsr3);
 
                 // Accumulate sensor scores
-                heelSum += point.fsr1;
-                midSum += point.fsr2;
-                toeSum += point.fsr3;
+                heelSum += fsr1;
+                midSum += fsr2;
+                toeSum += fsr3;
             }
             reader.close();
 
@@ -217,7 +312,11 @@ public class RunAnalysisFragment extends Fragment {
                 tvScore.setText(String.format("Score: %.1f", score));
             }
 
-            timelineView.setData(runData);
+            SummaryPyramid pyramid = loadOrBuildPyramid(uri);
+            imuAdapter.setPyramid(pyramid);
+            fsrAdapter.setPyramid(pyramid);
+
+            timelineView.setData(columns);
             updateCharts();
 
         } catch (Exception e) {
@@ -229,32 +328,16 @@ public class RunAnalysisFragment extends Fragment {
     }
 
     private void updateCharts() {
-        // Update IMU chart
-        ArrayList<Entry> entriesX = new ArrayList<>();
-        ArrayList<Entry> entriesY = new ArrayList<>();
-        ArrayList<Entry> entriesZ = new ArrayList<>();
-
-        // Update FSR chart
-        ArrayList<Entry> entriesFsr1 = new ArrayList<>();
-        ArrayList<Entry> entriesFsr2 = new ArrayList<>();
-        ArrayList<Entry> entriesFsr3 = new ArrayList<>();
-
-        for (RunningDataPoint point : runData) {
-            float time = point.timestamp / 1000f; // Convert to seconds
-
-            entriesX.add(new Entry(time, point.accX));
-            entriesY.add(new Entry(time, point.accY));
-            entriesZ.add(new Entry(time, point.accZ));
-
-            entriesFsr1.add(new Entry(time, point.fsr1));
-            entriesFsr2.add(new Entry(time, point.fsr2));
-            entriesFsr3.add(new Entry(time, point.fsr3));
-        }
+        // Start from a coarse overview of the whole run, the visible window is
+        // refined once the charts are laid out
+        int screenWidth = getResources().getDisplayMetrics().widthPixels;
+        imuAdapter.loadOverview(screenWidth);
+        fsrAdapter.loadOverview(screenWidth);
 
         // IMU chart data sets
-        LineDataSet setX = createDataSet(entriesX, "AccX (Red)", 0xFFFF0000);
-        LineDataSet setY = createDataSet(entriesY, "AccY (Green)", 0xFF00FF00);
-        LineDataSet setZ = createDataSet(entriesZ, "AccZ (Blue)", 0xFF0000FF);
+        LineDataSet setX = createDataSet(imuAdapter.getEntries(0), "AccX (Red)", 0xFFFF0000);
+        LineDataSet setY = createDataSet(imuAdapter.getEntries(1), "AccY (Green)", 0xFF00FF00);
+        LineDataSet setZ = createDataSet(imuAdapter.getEntries(2), "AccZ (Blue)", 0xFF0000FF);
 
         LineData imuData = new LineData(setX, setY, setZ);
         imuChart.setData(imuData);
@@ -289,9 +372,9 @@ public class RunAnalysisFragment extends Fragment {
         imuChart.invalidate();
 
         // FSR chart data sets
-        LineDataSet setHeel = createDataSet(entriesFsr1, "Heel (Red)", 0xFFFF0000);
-        LineDataSet setMid = createDataSet(entriesFsr2, "Mid (Green)", 0xFF00FF00);
-        LineDataSet setToe = createDataSet(entriesFsr3, "Toe (Blue)", 0xFF0000FF);
+        LineDataSet setHeel = createDataSet(fsrAdapter.getEntries(0), "Heel (Red)", 0xFFFF0000);
+        LineDataSet setMid = createDataSet(fsrAdapter.getEntries(1), "Mid (Green)", 0xFF00FF00);
+        LineDataSet setToe = createDataSet(fsrAdapter.getEntries(2), "Toe (Blue)", 0xFF0000FF);
 
         LineData fsrData = new LineData(setHeel, setMid, setToe);
         fsrChart.setData(fsrData);
@@ -323,14 +406,143 @@ public class RunAnalysisFragment extends Fragment {
 
         fsrChart.invalidate();
 
-        imuChart.setVisibleXRangeMaximum(20f);
-        fsrChart.setVisibleXRangeMaximum(20f);
+        // The data sets only ever hold part of the run, so pin the axes to the full run
+        fixAxisRanges(imuChart, IMU_CHANNELS);
+        fixAxisRanges(fsrChart, FSR_CHANNELS);
+
+        // Open on the first 20 seconds, the charts pick it up once laid out
+        if (!columns.isEmpty()) {
+            float start = columns.timestampAt(0) / 1000f;
+            viewport.setBounds(start, columns.duration() / 1000f);
+            viewport.setVisibleRange(start, start + 20f);
+        }
+        imuChart.post(() -> applyViewport(imuChart, viewport.getFrom(), viewport.getTo()));
+        fsrChart.post(() -> applyViewport(fsrChart, viewport.getFrom(), viewport.getTo()));
+    }
+
+    private void fixAxisRanges(LineChart chart, int[] channels) {
+        if (columns.isEmpty()) return;
+
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (int channel : channels) {
+            min = Math.min(min, columns.min(channel));
+            max = Math.max(max, columns.max(channel));
+        }
+        float padding = Math.max((max - min) * 0.05f, 0.1f);
+        chart.getAxisLeft().setAxisMinimum(min - padding);
+        chart.getAxisLeft().setAxisMaximum(max + padding);
+
+        chart.getXAxis().setAxisMinimum(columns.timestampAt(0) / 1000f);
+        chart.getXAxis().setAxisMaximum(columns.duration() / 1000f);
+        chart.notifyDataSetChanged();
+    }
+
+    /**
+     * Reads the summary pyramid stored with the session, or builds it and stores it
+     * for next time. Sessions without a file path keep theirs in the cache dir.
+     */
+    private SummaryPyramid loadOrBuildPyramid(Uri uri) {
+        File file = pyramidFileFor(uri);
+        try {
+            SummaryPyramid stored = SummaryPyramid.readFrom(file, columns.size());
+            if (stored != null) return stored;
+        } catch (IOException e) {
+            Log.w("RunAnalysisFragment", "Could not read summary pyramid: " + e.getMessage());
+        }
+
+        SummaryPyramid built = SummaryPyramid.build(columns);
+        try {
+            built.writeTo(file);
+        } catch (IOException e) {
+            Log.w("RunAnalysisFragment", "Could not store summary pyramid: " + e.getMessage());
+        }
+        return built;
+    }
+
+    private File pyramidFileFor(Uri uri) {
+        String path = FileUtils.getPath(requireContext(), uri);
+        if (path != null) {
+            File sibling = SummaryPyramid.fileFor(new File(path));
+            File dir = sibling.getParentFile();
+            if (sibling.exists() || (dir != null && dir.canWrite())) {
+                return sibling;
+            }
+        }
+        File cacheDir = new File(requireContext().getCacheDir(), "pyramids");
+        cacheDir.mkdirs();
+        return new File(cacheDir, Integer.toHexString(uri.toString().hashCode()) + ".pyr");
+    }
+
+    private void setupPlayback() {
+        playback.setListener(new PlaybackEngine.Listener() {
+            @Override
+            public void onPlaybackFrame(long timestamp, float[] values) {
+                float x = timestamp / 1000f;
+                // Keep the cursor on screen by paging, not by scrolling every frame
+                if (x < viewport.getFrom() || x > viewport.getFrom() + viewport.getWidth() * PLAYBACK_PAGE_AT) {
+                    viewport.moveTo(x - viewport.getWidth() * PLAYBACK_PAGE_TO);
+                }
+                imuRenderer.setCursor(x);
+                fsrRenderer.setCursor(x);
+                timelineView.setCursorTime(timestamp);
+                showPreview(timestamp, values);
+            }
+
+            @Override
+            public void onPlaybackStateChanged(boolean playing) {
+                btnPlay.setImageResource(playing
+                        ? android.R.drawable.ic_media_pause
+                        : android.R.drawable.ic_media_play);
+            }
+        });
+
+        btnPlay.setOnClickListener(v -> {
+            if (playback.isPlaying()) {
+                playback.pause();
+            } else {
+                playback.play();
+            }
+        });
+
+        playback.setSpeed(PLAYBACK_SPEEDS[speedIndex]);
+        btnSpeed.setText(PLAYBACK_SPEED_LABELS[speedIndex]);
+        btnSpeed.setOnClickListener(v -> {
+            speedIndex = (speedIndex + 1) % PLAYBACK_SPEEDS.length;
+            playback.setSpeed(PLAYBACK_SPEEDS[speedIndex]);
+            btnSpeed.setText(PLAYBACK_SPEED_LABELS[speedIndex]);
+        });
+    }
+
+    /**
+     * Moves the charts to the scrubbed sample and previews it. Everything is read
+     * straight from the sample's column index, nothing is rescanned.
+     */
+    private void onScrub(int index, long timestamp) {
+        viewport.moveTo(timestamp / 1000f);
+
+        // Playback continues, or resumes, from wherever the timeline was dragged to
+        playback.seek(timestamp);
+        imuRenderer.setCursor(timestamp / 1000f);
+        fsrRenderer.setCursor(timestamp / 1000f);
+
+        for (int channel = 0; channel < RunColumns.CHANNEL_COUNT; channel++) {
+            previewValues[channel] = columns.valueAt(channel, index);
+        }
+        showPreview(timestamp, previewValues);
     }
 
-    private void updateChartsPosition(long timestamp) {
-        float seconds = timestamp / 1000f;
-        imuChart.moveViewToX(seconds);
-        fsrChart.moveViewToX(seconds);
+    private void showPreview(long timestamp, float[] values) {
+        previewFsrValues[0] = values[RunColumns.FSR_HEEL];
+        previewFsrValues[1] = values[RunColumns.FSR_MID];
+        previewFsrValues[2] = values[RunColumns.FSR_TOE];
+        scrubHeatmap.updateValues(previewFsrValues);
+
+        tvScrubValues.setText(String.format(Locale.US,
+                "%.2fs\nAcc %.2f / %.2f / %.2f\nHeel %.0f  Mid %.0f  Toe %.0f",
+                timestamp / 1000f,
+                values[RunColumns.ACC_X], values[RunColumns.ACC_Y], values[RunColumns.ACC_Z],
+                previewFsrValues[0], previewFsrValues[1], previewFsrValues[2]));
     }
 
     private LineDataSet createDataSet(List<Entry> entries, String label, int color) {
@@ -339,7 +551,9 @@ public class RunAnalysisFragment extends Fragment {
         set.setDrawCircles(false);
         set.setLineWidth(2f);
         set.setDrawValues(false);
-        set.setMode(LineDataSet.Mode.CUBIC_BEZIER);
+        // Downsampled series are drawn as straight segments, bezier smoothing
+        // would overshoot the preserved peaks
+        set.setMode(LineDataSet.Mode.LINEAR);
         return set;
     }
 
@@ -0,0 +1,119 @@
+package com.example.feetmap;
+
+import java.util.Arrays;
+
+/**
+ * Column-oriented storage for a recorded run: one primitive array per sensor
+ * channel plus the timestamp column, so long runs do not cost an object per sample.
+ */
+public class RunColumns {
+    public static final int ACC_X = 0;
+    public static final int ACC_Y = 1;
+    public static final int ACC_Z = 2;
+    public static final int FSR_HEEL = 3;
+    public static final int FSR_MID = 4;
+    public static final int FSR_TOE = 5;
+    public static final int CHANNEL_COUNT = 6;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private final float[][] channels = new float[CHANNEL_COUNT][INITIAL_CAPACITY];
+    private int size;
+
+    public void add(long timestamp, float accX, float accY, float accZ,
+                    float fsr1, float fsr2, float fsr3) {
+        if (size == timestamps.length) {
+            grow();
+        }
+        timestamps[size] = timestamp;
+        channels[ACC_X][size] = accX;
+        channels[ACC_Y][size] = accY;
+        channels[ACC_Z][size] = accZ;
+        channels[FSR_HEEL][size] = fsr1;
+        channels[FSR_MID][size] = fsr2;
+        channels[FSR_TOE][size] = fsr3;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = timestamps.length * 2;
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        for (int ch = 0; ch < CHANNEL_COUNT; ch++) {
+            channels[ch] = Arrays.copyOf(channels[ch], capacity);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long timestampAt(int index) {
+        return timestamps[index];
+    }
+
+    public float valueAt(int channel, int index) {
+        return channels[channel][index];
+    }
+
+    /**
+     * Backing timestamp column, valid up to {@link #size()}. Do not modify.
+     */
+    public long[] timestamps() {
+        return timestamps;
+    }
+
+    /**
+     * Backing column of one channel, valid up to {@link #size()}. Do not modify.
+     */
+    public float[] channel(int channel) {
+        return channels[channel];
+    }
+
+    public long duration() {
+        return size == 0 ? 0 : timestamps[size - 1];
+    }
+
+    /**
+     * Index of the first sample at or after {@code timestamp}, or {@link #size()} if none.
+     */
+    public int indexAtOrAfter(long timestamp) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public float min(int channel) {
+        float[] values = channels[channel];
+        float min = Float.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    public float max(int channel) {
+        float[] values = channels[channel];
+        float max = -Float.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+}
@@ -6,35 +6,45 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.View;
-import java.util.ArrayList;
-import java.util.List;
 
+/**
+ * Timeline of heel-strike segments for a recorded run.
+ *
+ * Segments live in a {@link TimelineIndex}, so drawing only visits the visible
+ * range and merges segments that share a pixel column, at a cost bounded by the
+ * view width rather than the number of segments. One finger scrubs, two fingers
+ * pinch to zoom and drag to pan.
+ */
 public class RunTimelineView extends View {
     private static final int TIMELINE_HEIGHT = 60;
     private static final int MARKER_HEIGHT = 40;
+    // Never zoom in further than this many milliseconds across the view
+    private static final long MIN_VISIBLE_SPAN = 1000;
     private final Paint timelinePaint = new Paint();
     private final Paint markerPaint = new Paint();
     private final Paint selectedPaint = new Paint();
+    private final Paint windowPaint = new Paint();
     private float timelineWidth;
     private long totalDuration;
-    private List<TimelineSegment> segments = new ArrayList<>();
-    private float selectedPosition = -1;
+    private final TimelineIndex segments = new TimelineIndex();
+    // Visible time range, the whole run unless zoomed
+    private long viewStart;
+    private long viewEnd;
+    // Culled and pixel-merged segments for the current range, rebuilt when it changes
+    private float[] mergedLeft = new float[0];
+    private float[] mergedRight = new float[0];
+    private int[] mergedColors = new int[0];
+    private int mergedCount;
+    private boolean mergedDirty = true;
+    private long selectedTime = -1;
+    private int selectedSegment = -1;
+    private long windowStart = -1;
+    private long windowEnd = -1;
     private OnTimeSelectListener listener;
-
-    public static class TimelineSegment {
-        public final long startTime;
-        public final long endTime;
-        public final FSRType type;
-        public final float intensity;
-
-        public TimelineSegment(long startTime, long endTime, FSRType type, float intensity) {
-            this.startTime = startTime;
-            this.endTime = endTime;
-            this.type = type;
-            this.intensity = intensity;
-        }
-    }
+    private ScaleGestureDetector scaleDetector;
+    private float lastFocusX;
 
     public enum FSRType {
         HEEL(Color.RED),
@@ -62,12 +72,72 @@ public class RunTimelineView extends View {
         selectedPaint.setColor(Color.WHITE);
         selectedPaint.setStyle(Paint.Style.STROKE);
         selectedPaint.setStrokeWidth(4f);
+
+        windowPaint.setColor(Color.argb(60, 255, 255, 255));
+        windowPaint.setStyle(Paint.Style.FILL);
+
+        scaleDetector = new ScaleGestureDetector(getContext(),
+                new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+                    @Override
+                    public boolean onScaleBegin(ScaleGestureDetector detector) {
+                        lastFocusX = detector.getFocusX();
+                        return totalDuration > 0;
+                    }
+
+                    @Override
+                    public boolean onScale(ScaleGestureDetector detector) {
+                        zoomAndPan(detector.getFocusX(), detector.getScaleFactor());
+                        return true;
+                    }
+                });
     }
 
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
         timelineWidth = w - getPaddingLeft() - getPaddingRight();
+
+        // At most one merged rectangle per pixel column
+        int capacity = Math.max(0, w) + 2;
+        mergedLeft = new float[capacity];
+        mergedRight = new float[capacity];
+        mergedColors = new int[capacity];
+        mergedDirty = true;
+    }
+
+    /**
+     * Culls the segments to the visible range and merges every run that falls
+     * within one pixel column into a single rectangle. Each step either closes a
+     * rectangle or extends it by at least a pixel, so the cost is
+     * O(width * log segments) however many segments are visible.
+     */
+    private void mergeSegments() {
+        mergedDirty = false;
+        mergedCount = 0;
+        if (totalDuration <= 0 || timelineWidth <= 0) return;
+
+        int n = segments.size();
+        int i = segments.firstEndingAtOrAfter(viewStart);
+        while (i < n && segments.startAt(i) <= viewEnd && mergedCount < mergedLeft.length) {
+            float left = timeToX(Math.max(segments.startAt(i), viewStart));
+            int j = i;
+            float right;
+            while (true) {
+                right = timeToX(Math.min(segments.endAt(j), viewEnd));
+                // Everything starting before the next pixel column joins this rectangle
+                long nextColumn = xToTime((float) Math.floor(right) + 1f);
+                int next = segments.firstStartingAtOrAfter(nextColumn);
+                if (next <= j + 1) break;
+                j = next - 1;
+            }
+
+            int alpha = Math.min(255, Math.max(0, (int) (255 * segments.maxIntensity(i, j))));
+            mergedLeft[mergedCount] = left;
+            mergedRight[mergedCount] = Math.max(right, left + 1f);
+            mergedColors[mergedCount] = (segments.colorAt(i) & 0x00FFFFFF) | (alpha << 24);
+            mergedCount++;
+            i = j + 1;
+        }
     }
 
     @Override
@@ -80,44 +150,69 @@ public class RunTimelineView extends View {
                 getWidth() - getPaddingRight(), baseY,
                 timelinePaint);
 
-        // Draw segments
-        for (TimelineSegment segment : segments) {
-            float startX = timeToX(segment.startTime);
-            float endX = timeToX(segment.endTime);
-            markerPaint.setColor(segment.type.color);
-            markerPaint.setAlpha((int)(255 * segment.intensity));
+        if (totalDuration <= 0) return;
+
+        // Shade the range the charts are currently showing
+        if (windowStart >= 0 && windowEnd >= viewStart && windowStart <= viewEnd) {
+            canvas.drawRect(timeToX(Math.max(windowStart, viewStart)), baseY - MARKER_HEIGHT,
+                    timeToX(Math.min(windowEnd, viewEnd)), baseY + MARKER_HEIGHT, windowPaint);
+        }
 
-            canvas.drawRect(startX,
+        // Draw segments
+        if (mergedDirty) {
+            mergeSegments();
+        }
+        for (int i = 0; i < mergedCount; i++) {
+            markerPaint.setColor(mergedColors[i]);
+            canvas.drawRect(mergedLeft[i],
                     baseY - MARKER_HEIGHT/2f,
-                    endX,
+                    mergedRight[i],
                     baseY + MARKER_HEIGHT/2f,
                     markerPaint);
         }
 
+        // Outline the segment under the selection
+        if (selectedSegment >= 0 && segments.endAt(selectedSegment) >= viewStart
+                && segments.startAt(selectedSegment) <= viewEnd) {
+            canvas.drawRect(timeToX(Math.max(segments.startAt(selectedSegment), viewStart)),
+                    baseY - MARKER_HEIGHT/2f,
+                    timeToX(Math.min(segments.endAt(selectedSegment), viewEnd)),
+                    baseY + MARKER_HEIGHT/2f,
+                    selectedPaint);
+        }
+
         // Draw selection marker
-        if (selectedPosition >= 0) {
-            canvas.drawLine(selectedPosition, baseY - MARKER_HEIGHT,
-                    selectedPosition, baseY + MARKER_HEIGHT,
+        if (selectedTime >= viewStart && selectedTime <= viewEnd) {
+            float selectedX = timeToX(selectedTime);
+            canvas.drawLine(selectedX, baseY - MARKER_HEIGHT,
+                    selectedX, baseY + MARKER_HEIGHT,
                     selectedPaint);
         }
     }
 
     private float timeToX(long time) {
-        return getPaddingLeft() + (time / (float) totalDuration) * timelineWidth;
+        return getPaddingLeft() + ((time - viewStart) / (float) (viewEnd - viewStart)) * timelineWidth;
     }
 
     private long xToTime(float x) {
-        return (long) (((x - getPaddingLeft()) / timelineWidth) * totalDuration);
+        return viewStart + (long) (((x - getPaddingLeft()) / timelineWidth) * (viewEnd - viewStart));
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        scaleDetector.onTouchEvent(event);
+        if (event.getPointerCount() > 1 || scaleDetector.isInProgress()) {
+            return true;
+        }
+
         if (event.getAction() == MotionEvent.ACTION_DOWN ||
                 event.getAction() == MotionEvent.ACTION_MOVE) {
-            selectedPosition = Math.min(Math.max(event.getX(), getPaddingLeft()),
+            float x = Math.min(Math.max(event.getX(), getPaddingLeft()),
                     getWidth() - getPaddingRight());
+            selectedTime = xToTime(x);
+            selectedSegment = segments.indexAt(selectedTime);
             if (listener != null) {
-                listener.onTimeSelected(xToTime(selectedPosition));
+                listener.onTimeSelected(selectedTime);
             }
             invalidate();
             return true;
@@ -125,6 +220,44 @@ public class RunTimelineView extends View {
         return super.onTouchEvent(event);
     }
 
+    /**
+     * Scales the visible span around {@code focusX} and shifts it by how far the
+     * focus moved since the last gesture step.
+     */
+    private void zoomAndPan(float focusX, float scaleFactor) {
+        long span = viewEnd - viewStart;
+        long newSpan = (long) (span / scaleFactor);
+        newSpan = Math.max(Math.min(newSpan, totalDuration), Math.min(MIN_VISIBLE_SPAN, totalDuration));
+
+        float fraction = (focusX - getPaddingLeft()) / timelineWidth;
+        long focusTime = xToTime(lastFocusX);
+        long start = focusTime - (long) (fraction * newSpan);
+        lastFocusX = focusX;
+
+        setViewRange(start, start + newSpan);
+    }
+
+    /**
+     * Shows {@code [start, end]} of the run, clamped to its duration.
+     */
+    public void setViewRange(long start, long end) {
+        long span = Math.max(1, Math.min(end - start, totalDuration));
+        start = Math.max(0, Math.min(start, totalDuration - span));
+        if (start == viewStart && start + span == viewEnd) return;
+        viewStart = start;
+        viewEnd = start + span;
+        mergedDirty = true;
+        invalidate();
+    }
+
+    public long getViewStart() {
+        return viewStart;
+    }
+
+    public long getViewEnd() {
+        return viewEnd;
+    }
+
 //    public void setData(List<RunningDataPoint> data) {
 //        segments.clear();
 //        if (data.isEmpty()) return;
@@ -159,28 +292,37 @@ public class RunTimelineView extends View {
 //        invalidate();
 //    }
 
-    public void setData(List<RunningDataPoint> data) {
+    public void setData(RunColumns data) {
         segments.clear();
+        selectedSegment = -1;
+        mergedDirty = true;
+        totalDuration = 0;
         if (data.isEmpty()) return;
 
         // totalDuration needed for scaling
-        totalDuration = data.get(data.size() - 1).timestamp;
+        totalDuration = data.duration();
+        viewStart = 0;
+        viewEnd = Math.max(1, totalDuration);
+
+        float[] heel = data.channel(RunColumns.FSR_HEEL);
+        float[] mid = data.channel(RunColumns.FSR_MID);
+        float[] toe = data.channel(RunColumns.FSR_TOE);
 
         boolean inHeelSegment = false;
         long segmentStart = 0;
         float maxIntensity = 0f;
 
         for (int i = 0; i < data.size(); i++) {
-            RunningDataPoint point = data.get(i);
-            FSRType dominant = getDominantFSR(point);
-            float intensity = getMaxFSRValue(point); // e.g. max of fsr1, fsr2, fsr3
+            long timestamp = data.timestampAt(i);
+            FSRType dominant = getDominantFSR(heel[i], mid[i], toe[i]);
+            float intensity = Math.max(Math.max(heel[i], mid[i]), toe[i]);
 
             // Only show a segment if the heel is dominant and intensity is above threshold
             if (dominant == FSRType.HEEL && intensity > 0.3f) {
                 if (!inHeelSegment) {
                     // Just entered a heel-only segment
                     inHeelSegment = true;
-                    segmentStart = point.timestamp;
+                    segmentStart = timestamp;
                     maxIntensity = intensity;
                 } else {
                     // Continue the same segment, possibly update max intensity
@@ -190,12 +332,7 @@ public class RunTimelineView extends View {
                 // We are not in a heel-dominant area or below threshold
                 if (inHeelSegment) {
                     // Close the previous heel segment
-                    segments.add(new TimelineSegment(
-                            segmentStart,
-                            point.timestamp,
-                            FSRType.HEEL,
-                            maxIntensity
-                    ));
+                    addSegment(segmentStart, timestamp, FSRType.HEEL, maxIntensity);
                     inHeelSegment = false;
                 }
             }
@@ -203,26 +340,44 @@ public class RunTimelineView extends View {
 
         // If we ended while still in a heel segment, close it
         if (inHeelSegment) {
-            segments.add(new TimelineSegment(
-                    segmentStart,
-                    data.get(data.size() - 1).timestamp,
-                    FSRType.HEEL,
-                    maxIntensity
-            ));
+            addSegment(segmentStart, data.duration(), FSRType.HEEL, maxIntensity);
         }
 
+        segments.build();
         invalidate();
     }
 
+    private void addSegment(long start, long end, FSRType type, float intensity) {
+        // Out-of-order timestamps in a recording would make segments overlap, drop those
+        if (end < start || (segments.size() > 0 && start < segments.endAt(segments.size() - 1))) return;
+        segments.add(start, end, type.color, intensity);
+    }
+
 
-    private FSRType getDominantFSR(RunningDataPoint point) {
-        if (point.fsr1 > point.fsr2 && point.fsr1 > point.fsr3) return FSRType.HEEL;
-        if (point.fsr2 > point.fsr1 && point.fsr2 > point.fsr3) return FSRType.MID;
+    private FSRType getDominantFSR(float fsr1, float fsr2, float fsr3) {
+        if (fsr1 > fsr2 && fsr1 > fsr3) return FSRType.HEEL;
+        if (fsr2 > fsr1 && fsr2 > fsr3) return FSRType.MID;
         return FSRType.TOE;
     }
 
-    private float getMaxFSRValue(RunningDataPoint point) {
-        return Math.max(Math.max(point.fsr1, point.fsr2), point.fsr3);
+    /**
+     * Moves the selection marker without notifying the listener, e.g. for playback.
+     */
+    public void setCursorTime(long time) {
+        if (time == selectedTime) return;
+        selectedTime = time;
+        selectedSegment = segments.indexAt(time);
+        invalidate();
+    }
+
+    /**
+     * Highlights the time range currently visible in the linked charts.
+     */
+    public void setVisibleWindow(long start, long end) {
+        if (start == windowStart && end == windowEnd) return;
+        windowStart = start;
+        windowEnd = end;
+        invalidate();
     }
 
     public interface OnTimeSelectListener {
@@ -0,0 +1,63 @@
+package com.example.feetmap;
+
+/**
+ * Coalesces timeline scrubbing to at most one update per frame.
+ *
+ * Touch events only record the requested time. On the next frame the time is
+ * resolved to a sample index with one binary search over the timestamp column
+ * and handed to the {@link Listener}, however many move events arrived.
+ */
+public class ScrubCursor implements RenderScheduler.FrameListener {
+
+    public interface Listener {
+        void onScrub(int index, long timestamp);
+    }
+
+    private final RenderScheduler scheduler;
+    private final RunColumns columns;
+    private Listener listener;
+    private long pendingTime;
+    private boolean pending;
+    private int index = -1;
+
+    /**
+     * Register before any {@link ChartViewport} on the same scheduler, so viewport
+     * moves made from {@link Listener#onScrub} land in the same frame.
+     */
+    public ScrubCursor(RenderScheduler scheduler, RunColumns columns) {
+        this.scheduler = scheduler;
+        this.columns = columns;
+        scheduler.addFrameListener(this);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void scrubTo(long timestamp) {
+        pendingTime = timestamp;
+        pending = true;
+        scheduler.requestFrame();
+    }
+
+    /**
+     * Sample index of the last resolved scrub, or -1.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public void onFrame(long frameTimeNanos) {
+        if (!pending) return;
+        pending = false;
+        if (columns.isEmpty()) return;
+
+        int found = Math.min(columns.indexAtOrAfter(pendingTime), columns.size() - 1);
+        if (found == index) return;
+        index = found;
+        if (listener != null) {
+            listener.onScrub(index, columns.timestampAt(index));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.feetmap;
+
+/**
+ * Median of a sliding window in O(log w) per insert or removal.
+ *
+ * The lower half of the window is kept in a max-heap and the upper half in a
+ * min-heap. Every heap entry is a ring-buffer slot whose heap and position are
+ * tracked, so the sample leaving the window can be removed directly, without lazy
+ * deletion. For an even count the median is the mean of the two middle values,
+ * as with {@code numpy.median}.
+ */
+public class SlidingMedian {
+    private static final byte NONE = 0;
+    private static final byte LOW = 1;
+    private static final byte HIGH = 2;
+
+    private final float[] values;
+    private final byte[] heapOf;
+    private final int[] position;
+    // Max-heap of the lower half and min-heap of the upper half, both holding slots
+    private final int[] low;
+    private final int[] high;
+    private int lowSize;
+    private int highSize;
+
+    public SlidingMedian(int capacity) {
+        values = new float[capacity];
+        heapOf = new byte[capacity];
+        position = new int[capacity];
+        low = new int[capacity];
+        high = new int[capacity];
+    }
+
+    public int size() {
+        return lowSize + highSize;
+    }
+
+    /**
+     * Adds {@code value} in ring-buffer {@code slot}, which must be empty.
+     */
+    public void add(int slot, float value) {
+        values[slot] = value;
+        if (lowSize == 0 || value <= values[low[0]]) {
+            push(LOW, slot);
+        } else {
+            push(HIGH, slot);
+        }
+        rebalance();
+    }
+
+    /**
+     * Removes the value in {@code slot}, if any.
+     */
+    public void remove(int slot) {
+        byte heap = heapOf[slot];
+        if (heap == NONE) return;
+        removeAt(heap, position[slot]);
+        rebalance();
+    }
+
+    public void clear() {
+        for (int i = 0; i < lowSize; i++) heapOf[low[i]] = NONE;
+        for (int i = 0; i < highSize; i++) heapOf[high[i]] = NONE;
+        lowSize = 0;
+        highSize = 0;
+    }
+
+    public float median() {
+        if (lowSize == 0) return 0f;
+        if (lowSize > highSize) return values[low[0]];
+        return (values[low[0]] + values[high[0]]) * 0.5f;
+    }
+
+    // Lower half may hold one more value than the upper half
+    private void rebalance() {
+        if (lowSize > highSize + 1) {
+            int slot = low[0];
+            removeAt(LOW, 0);
+            push(HIGH, slot);
+        } else if (highSize > lowSize) {
+            int slot = high[0];
+            removeAt(HIGH, 0);
+            push(LOW, slot);
+        }
+    }
+
+    private void push(byte heap, int slot) {
+        int index = heap == LOW ? lowSize++ : highSize++;
+        place(heap, index, slot);
+        siftUp(heap, index);
+    }
+
+    private void removeAt(byte heap, int index) {
+        int[] h = heap == LOW ? low : high;
+        int last = heap == LOW ? --lowSize : --highSize;
+        heapOf[h[index]] = NONE;
+        if (index == last) return;
+
+        place(heap, index, h[last]);
+        if (!siftUp(heap, index)) {
+            siftDown(heap, index);
+        }
+    }
+
+    private void place(byte heap, int index, int slot) {
+        (heap == LOW ? low : high)[index] = slot;
+        heapOf[slot] = heap;
+        position[slot] = index;
+    }
+
+    // Whether slot a belongs above slot b in the heap
+    private boolean above(byte heap, int a, int b) {
+        return heap == LOW ? values[a] > values[b] : values[a] < values[b];
+    }
+
+    private boolean siftUp(byte heap, int index) {
+        int[] h = heap == LOW ? low : high;
+        int start = index;
+        int slot = h[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!above(heap, slot, h[parent])) break;
+            place(heap, index, h[parent]);
+            index = parent;
+        }
+        place(heap, index, slot);
+        return index != start;
+    }
+
+    private void siftDown(byte heap, int index) {
+        int[] h = heap == LOW ? low : high;
+        int size = heap == LOW ? lowSize : highSize;
+        int slot = h[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) break;
+            if (child + 1 < size && above(heap, h[child + 1], h[child])) child++;
+            if (!above(heap, h[child], slot)) break;
+            place(heap, index, h[child]);
+            index = child;
+        }
+        place(heap, index, slot);
+    }
+}
@@ -15,6 +15,8 @@ public class StartActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_start);
+        // Map and warm up the terrain model while the user picks a screen
+        ModelLoader.preload(this);
 
         Button btnMainApp = findViewById(R.id.btnMainApp);
         Button btnNewFeature = findViewById(R.id.btnNewFeature);
@@ -0,0 +1,184 @@
+package com.example.feetmap;
+
+/**
+ * Computes the classifier's window features incrementally, one sample at a time.
+ *
+ * Per axis, monotonic deques track the window minimum and maximum, a running sum
+ * the mean and a {@link SlidingMedian} the median, so every sample costs O(log w)
+ * whatever the window length and hop. {@link #add} reports when a window is
+ * complete, at which point {@link #read} fills a {@link FeatureVector}.
+ */
+public class StreamingFeatureExtractor {
+    private static final int AXES = 3;
+
+    private final int windowLength;
+    private final int hop;
+    private final Axis[] axes = new Axis[AXES];
+    private long count;
+
+    /**
+     * @param windowLength samples per window
+     * @param hop          samples between the starts of consecutive windows
+     */
+    public StreamingFeatureExtractor(int windowLength, int hop) {
+        if (windowLength <= 0 || hop <= 0) {
+            throw new IllegalArgumentException("Window length and hop must be positive");
+        }
+        this.windowLength = windowLength;
+        this.hop = hop;
+        for (int i = 0; i < AXES; i++) {
+            axes[i] = new Axis(windowLength);
+        }
+    }
+
+    public int getWindowLength() {
+        return windowLength;
+    }
+
+    public int getHop() {
+        return hop;
+    }
+
+    /**
+     * Adds one accelerometer sample.
+     *
+     * @return whether a window ends with this sample
+     */
+    public boolean add(float x, float y, float z) {
+        axes[0].add(count, x);
+        axes[1].add(count, y);
+        axes[2].add(count, z);
+        count++;
+        return count >= windowLength && (count - windowLength) % hop == 0;
+    }
+
+    /**
+     * Writes the features of the last {@code windowLength} samples into {@code out}.
+     */
+    public void read(FeatureVector out) {
+        for (int i = 0; i < AXES; i++) {
+            Axis axis = axes[i];
+            out.setAxis(i, axis.max(), axis.min(), axis.median.median(), axis.mean());
+        }
+    }
+
+    public void reset() {
+        count = 0;
+        for (Axis axis : axes) {
+            axis.clear();
+        }
+    }
+
+    /**
+     * Window state of one axis. Samples are addressed by sequence number, stored in
+     * a ring buffer at {@code sequence % windowLength}.
+     */
+    private static class Axis {
+        final int length;
+        final float[] values;
+        final SlidingMedian median;
+        // Sequence numbers with decreasing values (max) and increasing values (min)
+        final Deque maxima;
+        final Deque minima;
+        double sum;
+        int size;
+
+        Axis(int length) {
+            this.length = length;
+            values = new float[length];
+            median = new SlidingMedian(length);
+            maxima = new Deque(length);
+            minima = new Deque(length);
+        }
+
+        void add(long sequence, float value) {
+            int slot = (int) (sequence % length);
+            if (size == length) {
+                // The oldest sample leaves the window through this slot
+                long expired = sequence - length;
+                if (maxima.front() == expired) maxima.popFront();
+                if (minima.front() == expired) minima.popFront();
+                median.remove(slot);
+                sum -= values[slot];
+            } else {
+                size++;
+            }
+
+            values[slot] = value;
+            sum += value;
+            median.add(slot, value);
+            while (!maxima.isEmpty() && valueOf(maxima.back()) <= value) maxima.popBack();
+            maxima.pushBack(sequence);
+            while (!minima.isEmpty() && valueOf(minima.back()) >= value) minima.popBack();
+            minima.pushBack(sequence);
+        }
+
+        float valueOf(long sequence) {
+            return values[(int) (sequence % length)];
+        }
+
+        float max() {
+            return size == 0 ? 0f : valueOf(maxima.front());
+        }
+
+        float min() {
+            return size == 0 ? 0f : valueOf(minima.front());
+        }
+
+        float mean() {
+            return size == 0 ? 0f : (float) (sum / size);
+        }
+
+        void clear() {
+            median.clear();
+            maxima.clear();
+            minima.clear();
+            sum = 0;
+            size = 0;
+        }
+    }
+
+    /**
+     * Fixed-capacity ring deque of sequence numbers.
+     */
+    private static class Deque {
+        final long[] items;
+        int head;
+        int size;
+
+        Deque(int capacity) {
+            items = new long[capacity];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long front() {
+            return size == 0 ? -1 : items[head];
+        }
+
+        long back() {
+            return items[(head + size - 1) % items.length];
+        }
+
+        void pushBack(long sequence) {
+            items[(head + size) % items.length] = sequence;
+            size++;
+        }
+
+        void popFront() {
+            head = (head + 1) % items.length;
+            size--;
+        }
+
+        void popBack() {
+            size--;
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.feetmap;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+import java.util.Locale;
+
+/**
+ * Scrolling multi-channel strip chart for live sensor streams.
+ *
+ * Samples go into one primitive ring buffer per channel and are drawn with a single
+ * {@link Canvas#drawLines} call per channel from a preallocated vertex array. The
+ * y-axis is either fixed or widened incrementally as samples arrive, so nothing is
+ * recomputed or allocated inside {@link #onDraw}.
+ */
+public class StripChartView extends View {
+    private static final int DEFAULT_CAPACITY = 120;
+    private static final int Y_LABEL_COUNT = 5;
+    private static final float LEFT_OFFSET = 90f;
+    private static final float TOP_OFFSET = 50f;
+    private static final float RIGHT_OFFSET = 20f;
+    private static final float BOTTOM_OFFSET = 20f;
+    private static final float LEGEND_BOX_SIZE = 20f;
+
+    private final Paint gridPaint = new Paint();
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint legendPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private int channelCount;
+    private int capacity = DEFAULT_CAPACITY;
+    private Paint[] channelPaints = new Paint[0];
+    private String[] channelLabels = new String[0];
+    private float[] legendOffsets = new float[0];
+    private float[][] samples = new float[0][];
+    private float[][] vertices = new float[0][];
+    private int writeIndex;
+    private int count;
+
+    private boolean autoScale = true;
+    private float yMin = -1f;
+    private float yMax = 1f;
+    private boolean hasRange;
+    private final float[] gridLines = new float[Y_LABEL_COUNT * 4];
+    private final String[] yLabels = new String[Y_LABEL_COUNT];
+    private final float[] yLabelPositions = new float[Y_LABEL_COUNT];
+
+    private float plotLeft, plotTop, plotRight, plotBottom;
+
+    public StripChartView(Context context) {
+        super(context);
+        init();
+    }
+
+    public StripChartView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    private void init() {
+        gridPaint.setColor(Color.GRAY);
+        gridPaint.setStrokeWidth(1f);
+
+        labelPaint.setColor(Color.WHITE);
+        labelPaint.setTextSize(28f);
+        labelPaint.setTextAlign(Paint.Align.RIGHT);
+
+        legendPaint.setStyle(Paint.Style.FILL);
+    }
+
+    /**
+     * Sets the channel labels and colors. Clears any buffered samples.
+     */
+    public void setChannels(String[] labels, int[] colors) {
+        channelCount = labels.length;
+        channelLabels = labels.clone();
+        channelPaints = new Paint[channelCount];
+        legendOffsets = new float[channelCount];
+
+        float offset = 0f;
+        for (int i = 0; i < channelCount; i++) {
+            Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            paint.setColor(colors[i]);
+            paint.setStrokeWidth(2.5f);
+            paint.setStyle(Paint.Style.STROKE);
+            channelPaints[i] = paint;
+
+            legendOffsets[i] = offset;
+            offset += LEGEND_BOX_SIZE * 2 + labelPaint.measureText(labels[i]) + LEGEND_BOX_SIZE;
+        }
+        allocateBuffers();
+    }
+
+    /**
+     * Sets how many samples per channel are visible across the chart width.
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = Math.max(2, capacity);
+        allocateBuffers();
+    }
+
+    /**
+     * Fixes the y-axis range, disabling auto-scaling.
+     */
+    public void setYRange(float min, float max) {
+        autoScale = false;
+        setRange(min, max);
+    }
+
+    /**
+     * Lets the y-axis grow to fit incoming samples.
+     */
+    public void setAutoScale(boolean autoScale) {
+        this.autoScale = autoScale;
+        if (autoScale) {
+            hasRange = false;
+        }
+    }
+
+    /**
+     * Appends one sample per channel. {@code values} must hold at least
+     * {@link #setChannels channelCount} values and is not retained.
+     */
+    public void addSample(float[] values) {
+        if (channelCount == 0) return;
+
+        for (int ch = 0; ch < channelCount; ch++) {
+            float v = values[ch];
+            samples[ch][writeIndex] = v;
+            if (autoScale) {
+                expandRange(v);
+            }
+        }
+        writeIndex = (writeIndex + 1) % capacity;
+        if (count < capacity) {
+            count++;
+        }
+    }
+
+    public void clear() {
+        writeIndex = 0;
+        count = 0;
+        if (autoScale) {
+            hasRange = false;
+        }
+        invalidate();
+    }
+
+    private void allocateBuffers() {
+        samples = new float[channelCount][capacity];
+        vertices = new float[channelCount][(capacity - 1) * 4];
+        writeIndex = 0;
+        count = 0;
+    }
+
+    private void expandRange(float v) {
+        if (!hasRange) {
+            hasRange = true;
+            setRange(v - 1f, v + 1f);
+        } else if (v < yMin || v > yMax) {
+            // Grow with some headroom so the axis does not change on every new extreme
+            float span = yMax - yMin;
+            setRange(Math.min(yMin, v - span * 0.1f), Math.max(yMax, v + span * 0.1f));
+        }
+    }
+
+    private void setRange(float min, float max) {
+        yMin = min;
+        yMax = max > min ? max : min + 1f;
+        updateAxis();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        plotLeft = LEFT_OFFSET;
+        plotTop = TOP_OFFSET;
+        plotRight = w - RIGHT_OFFSET;
+        plotBottom = h - BOTTOM_OFFSET;
+        updateAxis();
+    }
+
+    private void updateAxis() {
+        float step = (yMax - yMin) / (Y_LABEL_COUNT - 1);
+        for (int i = 0; i < Y_LABEL_COUNT; i++) {
+            float value = yMin + step * i;
+            float y = valueToY(value);
+            gridLines[i * 4] = plotLeft;
+            gridLines[i * 4 + 1] = y;
+            gridLines[i * 4 + 2] = plotRight;
+            gridLines[i * 4 + 3] = y;
+            yLabels[i] = String.format(Locale.US, "%.1f", value);
+            yLabelPositions[i] = y + labelPaint.getTextSize() / 3;
+        }
+    }
+
+    private float valueToY(float value) {
+        return plotBottom - (value - yMin) / (yMax - yMin) * (plotBottom - plotTop);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        canvas.drawLines(gridLines, gridPaint);
+        for (int i = 0; i < Y_LABEL_COUNT; i++) {
+            canvas.drawText(yLabels[i], plotLeft - 10f, yLabelPositions[i], labelPaint);
+        }
+        drawLegend(canvas);
+
+        if (count < 2) return;
+
+        float dx = (plotRight - plotLeft) / (capacity - 1);
+        float startX = plotRight - (count - 1) * dx;
+        int oldest = (writeIndex - count + capacity) % capacity;
+        float scaleY = (plotBottom - plotTop) / (yMax - yMin);
+
+        for (int ch = 0; ch < channelCount; ch++) {
+            float[] ring = samples[ch];
+            float[] lines = vertices[ch];
+
+            int index = oldest;
+            float prevX = startX;
+            float prevY = plotBottom - (ring[index] - yMin) * scaleY;
+            int v = 0;
+            for (int i = 1; i < count; i++) {
+                index = index + 1 == capacity ? 0 : index + 1;
+                float x = startX + i * dx;
+                float y = plotBottom - (ring[index] - yMin) * scaleY;
+                lines[v++] = prevX;
+                lines[v++] = prevY;
+                lines[v++] = x;
+                lines[v++] = y;
+                prevX = x;
+                prevY = y;
+            }
+            canvas.drawLines(lines, 0, v, channelPaints[ch]);
+        }
+    }
+
+    private void drawLegend(Canvas canvas) {
+        float top = (plotTop - LEGEND_BOX_SIZE) / 2f;
+        for (int i = 0; i < channelCount; i++) {
+            float left = plotLeft + legendOffsets[i];
+            legendPaint.setColor(channelPaints[i].getColor());
+            canvas.drawRect(left, top, left + LEGEND_BOX_SIZE, top + LEGEND_BOX_SIZE, legendPaint);
+
+            labelPaint.setTextAlign(Paint.Align.LEFT);
+            canvas.drawText(channelLabels[i], left + LEGEND_BOX_SIZE * 1.5f,
+                    top + LEGEND_BOX_SIZE, labelPaint);
+            labelPaint.setTextAlign(Paint.Align.RIGHT);
+        }
+    }
+}
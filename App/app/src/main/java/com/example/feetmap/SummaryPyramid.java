@@ -0,0 +1,281 @@
+package com.example.feetmap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Multi-resolution min/max/mean summaries of every channel of a run.
+ *
+ * Level {@code k} summarizes buckets of {@code 2^(k+1)} consecutive samples, so
+ * any viewport can be reduced to a few points per pixel by reading the level whose
+ * bucket size just fits, in O(pixels) instead of O(samples). The pyramid can be
+ * built in one pass after loading or extended incrementally while recording, and
+ * persisted next to the session.
+ */
+public class SummaryPyramid {
+    private static final int MAGIC = 0x464d5059; // "FMPY"
+    private static final int VERSION = 1;
+    private static final int MAX_LEVELS = 31;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final String FILE_EXTENSION = ".pyr";
+
+    private static class Level {
+        float[] min = new float[INITIAL_CAPACITY];
+        float[] max = new float[INITIAL_CAPACITY];
+        float[] sum = new float[INITIAL_CAPACITY];
+        int count;
+
+        void add(float bucketMin, float bucketMax, float bucketSum) {
+            if (count == min.length) {
+                int capacity = count * 2;
+                min = Arrays.copyOf(min, capacity);
+                max = Arrays.copyOf(max, capacity);
+                sum = Arrays.copyOf(sum, capacity);
+            }
+            min[count] = bucketMin;
+            max[count] = bucketMax;
+            sum[count] = bucketSum;
+            count++;
+        }
+    }
+
+    private final int channelCount;
+    private final Level[][] levels;
+    private final int[] levelCounts;
+    private int sampleCount;
+
+    public SummaryPyramid(int channelCount) {
+        this.channelCount = channelCount;
+        levels = new Level[channelCount][MAX_LEVELS];
+        levelCounts = new int[channelCount];
+    }
+
+    /**
+     * The pyramid file stored alongside a session CSV.
+     */
+    public static File fileFor(File csvFile) {
+        String name = csvFile.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return new File(csvFile.getParentFile(), base + FILE_EXTENSION);
+    }
+
+    public static SummaryPyramid build(RunColumns columns) {
+        SummaryPyramid pyramid = new SummaryPyramid(RunColumns.CHANNEL_COUNT);
+        pyramid.update(columns);
+        return pyramid;
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    public int getLevelCount(int channel) {
+        return levelCounts[channel];
+    }
+
+    public static int bucketSize(int level) {
+        return 2 << level;
+    }
+
+    public float min(int channel, int level, int bucket) {
+        return levels[channel][level].min[bucket];
+    }
+
+    public float max(int channel, int level, int bucket) {
+        return levels[channel][level].max[bucket];
+    }
+
+    public float mean(int channel, int level, int bucket) {
+        return levels[channel][level].sum[bucket] / bucketSize(level);
+    }
+
+    /**
+     * Summarizes every bucket completed by samples added to {@code columns} since
+     * the last call. Cost is amortized O(1) per new sample.
+     */
+    public void update(RunColumns columns) {
+        int n = columns.size();
+        if (n < sampleCount) {
+            throw new IllegalArgumentException("Columns shrank from " + sampleCount + " to " + n);
+        }
+
+        for (int ch = 0; ch < channelCount; ch++) {
+            float[] raw = columns.channel(ch);
+            Level base = level(ch, 0);
+            while (base.count < n / 2) {
+                int i = base.count * 2;
+                float a = raw[i];
+                float b = raw[i + 1];
+                base.add(Math.min(a, b), Math.max(a, b), a + b);
+            }
+
+            for (int k = 1; k < MAX_LEVELS; k++) {
+                Level below = levels[ch][k - 1];
+                if (below.count < 2) break;
+                Level current = level(ch, k);
+                while (current.count < below.count / 2) {
+                    int j = current.count * 2;
+                    current.add(Math.min(below.min[j], below.min[j + 1]),
+                            Math.max(below.max[j], below.max[j + 1]),
+                            below.sum[j] + below.sum[j + 1]);
+                }
+            }
+        }
+        sampleCount = n;
+    }
+
+    private Level level(int channel, int k) {
+        if (levels[channel][k] == null) {
+            levels[channel][k] = new Level();
+            levelCounts[channel] = k + 1;
+        }
+        return levels[channel][k];
+    }
+
+    /**
+     * Reduces samples {@code [from, to)} of one channel to a min and max point per
+     * output bucket, reading from the coarsest level that still fits. Falls back to
+     * {@link ChartDownsampler} when the range is too short to benefit.
+     *
+     * @return the number of points written, at most {@code 2 * buckets}
+     */
+    public int downsample(int channel, RunColumns columns, int from, int to, int buckets,
+                          float[] outX, float[] outY) {
+        long[] timestamps = columns.timestamps();
+        float[] raw = columns.channel(channel);
+        int count = to - from;
+        int samplesPerBucket = count / Math.max(1, buckets);
+
+        // Level k holds buckets of 2^(k+1) samples
+        int level = 31 - Integer.numberOfLeadingZeros(Math.max(1, samplesPerBucket)) - 1;
+        level = Math.min(level, levelCounts[channel] - 1);
+        if (level < 1 || count <= 2 * buckets) {
+            return ChartDownsampler.downsample(ChartDownsampler.Mode.MIN_MAX, timestamps, raw,
+                    from, to, 2 * buckets, outX, outY);
+        }
+
+        Level summary = levels[channel][level];
+        int size = bucketSize(level);
+        int n = 0;
+        int current = -1;
+        int currentStart = from;
+        float currentMin = 0f;
+        float currentMax = 0f;
+        float previousY = raw[from];
+
+        int i = from;
+        while (i < to) {
+            float lo;
+            float hi;
+            int step;
+            int bucket = i / size;
+            if (i % size == 0 && i + size <= to && bucket < summary.count) {
+                lo = summary.min[bucket];
+                hi = summary.max[bucket];
+                step = size;
+            } else {
+                lo = raw[i];
+                hi = raw[i];
+                step = 1;
+            }
+
+            int out = (int) ((long) (i - from) * buckets / count);
+            if (out != current) {
+                if (current >= 0) {
+                    n = emit(timestamps, currentStart, i, currentMin, currentMax, previousY, n, outX, outY);
+                    previousY = outY[n - 1];
+                }
+                current = out;
+                currentStart = i;
+                currentMin = lo;
+                currentMax = hi;
+            } else {
+                currentMin = Math.min(currentMin, lo);
+                currentMax = Math.max(currentMax, hi);
+            }
+            i += step;
+        }
+        if (current >= 0) {
+            n = emit(timestamps, currentStart, to, currentMin, currentMax, previousY, n, outX, outY);
+        }
+        return n;
+    }
+
+    private static int emit(long[] timestamps, int start, int end, float min, float max,
+                            float previousY, int n, float[] outX, float[] outY) {
+        float x = timestamps[(start + end - 1) >>> 1] / 1000f;
+        if (min == max) {
+            outX[n] = x;
+            outY[n] = min;
+            return n + 1;
+        }
+        // Visit the extreme closest to the previous point first to keep the line continuous
+        boolean minFirst = Math.abs(previousY - min) <= Math.abs(previousY - max);
+        outX[n] = x;
+        outY[n] = minFirst ? min : max;
+        outX[n + 1] = x;
+        outY[n + 1] = minFirst ? max : min;
+        return n + 2;
+    }
+
+    public void writeTo(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(channelCount);
+            out.writeInt(sampleCount);
+            for (int ch = 0; ch < channelCount; ch++) {
+                out.writeInt(levelCounts[ch]);
+                for (int k = 0; k < levelCounts[ch]; k++) {
+                    Level level = levels[ch][k];
+                    out.writeInt(level.count);
+                    for (int b = 0; b < level.count; b++) {
+                        out.writeFloat(level.min[b]);
+                        out.writeFloat(level.max[b]);
+                        out.writeFloat(level.sum[b]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a pyramid written by {@link #writeTo}. Returns null if the file does not
+     * exist or does not summarize exactly {@code expectedSamples} samples.
+     */
+    public static SummaryPyramid readFrom(File file, int expectedSamples) throws IOException {
+        if (!file.exists()) return null;
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+
+            int channels = in.readInt();
+            int samples = in.readInt();
+            if (samples != expectedSamples) return null;
+
+            SummaryPyramid pyramid = new SummaryPyramid(channels);
+            pyramid.sampleCount = samples;
+            for (int ch = 0; ch < channels; ch++) {
+                int levelCount = in.readInt();
+                for (int k = 0; k < levelCount; k++) {
+                    Level level = pyramid.level(ch, k);
+                    int count = in.readInt();
+                    for (int b = 0; b < count; b++) {
+                        level.add(in.readFloat(), in.readFloat(), in.readFloat());
+                    }
+                }
+            }
+            return pyramid;
+        }
+    }
+}
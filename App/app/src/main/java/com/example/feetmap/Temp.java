@@ -16,24 +16,17 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
+import android.widget.TextView;
 import android.widget.Toast;
-import com.github.mikephil.charting.formatter.ValueFormatter;
-
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
-import com.github.mikephil.charting.charts.LineChart;
-import com.github.mikephil.charting.data.Entry;
-import com.github.mikephil.charting.data.LineData;
-import com.github.mikephil.charting.data.LineDataSet;
-import com.github.mikephil.charting.interfaces.datasets.ILineDataSet;
-
 import java.io.File;
 import java.io.FileWriter;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Locale;
 
@@ -41,6 +34,9 @@ public class Temp extends Fragment implements ServiceConnection, SerialListener
     private static final String TAG = "Temp";
     private static final String CSV_DIR = "csv_dir";
     private static final String TRACK_DIR = "track";
+    // The board sends about 30 samples per second: 2 s windows, a label every 100 ms
+    private static final int TERRAIN_WINDOW = 60;
+    private static final int TERRAIN_HOP = 3;
     private enum Connected { False, Pending, True }
 
     // Serial connection
@@ -51,14 +47,32 @@ public class Temp extends Fragment implements ServiceConnection, SerialListener
 
     // UI Elements
     private FootHeatmapView heatmapView;
-    private LineChart imuChart;
+    private StripChartView imuChart;
     private Button btnStartTracking;
+    private TextView tvTerrain;
+    private RenderScheduler renderScheduler;
+    // Written per sample, read once per frame
+    private final LatestValues latestFsrValues = new LatestValues(3);
+    private final float[] imuSample = new float[3];
 //    private Button btnReturn;
 
+    // Live terrain classification, updated from the inference thread
+    private LiveClassifier terrainClassifier;
+    private final ModelLoader.Callback terrainModelCallback = this::onTerrainModelReady;
+    private int terrainClass = -1;
+    private String terrainLabel;
+    private float terrainConfidence;
+    private boolean terrainChanged;
+
     // Tracking state
     private boolean isTracking = false;
     private long trackingStartTime;
-    private ArrayList<RunningDataPoint> trackingData = new ArrayList<>();
+    private final RunColumns trackingData = new RunColumns();
+    // Built while recording so the saved session can be zoomed without a rescan
+    private SummaryPyramid trackingPyramid;
+    // Terrain class and confidence for every recorded sample
+    private int[] trackingTerrain = new int[1024];
+    private float[] trackingTerrainConfidence = new float[1024];
 
     public static Temp newInstance(String deviceAddress) {
         Temp fragment = new Temp();
@@ -73,6 +87,36 @@ public class Temp extends Fragment implements ServiceConnection, SerialListener
         super.onCreate(savedInstanceState);
         setRetainInstance(true);
         deviceAddress = getArguments() != null ? getArguments().getString("device") : null;
+        setupTerrainClassifier();
+    }
+
+    private void setupTerrainClassifier() {
+        // Loaded in the background since app start, wait for it rather than block here
+        ModelLoader.whenReady(requireContext(), terrainModelCallback);
+    }
+
+    private void onTerrainModelReady(ModelPredictor predictor) {
+        if (predictor == null) {
+            Log.e(TAG, "Terrain model not available, live classification disabled");
+            if (tvTerrain != null) {
+                tvTerrain.setText("Terrain: model unavailable");
+            }
+            return;
+        }
+        terrainClassifier = new LiveClassifier(predictor, TERRAIN_WINDOW, TERRAIN_HOP);
+        if (renderScheduler != null) {
+            // Battery saver also trims the forest evaluation
+            terrainClassifier.setEarlyExit(renderScheduler.isLowPowerMode());
+        }
+        terrainClassifier.setListener((classIndex, label, confidence) -> {
+            terrainClass = classIndex;
+            terrainLabel = label;
+            terrainConfidence = confidence;
+            terrainChanged = true;
+            if (renderScheduler != null) {
+                renderScheduler.requestFrame();
+            }
+        });
     }
 
     @Override
@@ -84,11 +128,26 @@ public class Temp extends Fragment implements ServiceConnection, SerialListener
         heatmapView.setFootImage(R.mipmap.footpic);
         imuChart = view.findViewById(R.id.imuChart);
         btnStartTracking = view.findViewById(R.id.btnStartTracking);
+        tvTerrain = view.findViewById(R.id.tvTerrain);
+        terrainChanged = terrainLabel != null;
+        if (terrainClassifier == null) {
+            tvTerrain.setText(ModelLoader.hasFailed()
+                    ? "Terrain: model unavailable"
+                    : "Terrain: loading model");
+        }
 //        btnReturn = view.findViewById(R.id.btnReturn);
 
         setupIMUChart();
         setupTracking();
 
+        renderScheduler = new RenderScheduler();
+        renderScheduler.syncWithPowerSaveMode(requireContext());
+        if (terrainClassifier != null) {
+            // Battery saver also trims the forest evaluation
+            terrainClassifier.setEarlyExit(renderScheduler.isLowPowerMode());
+        }
+        renderScheduler.addFrameListener(this::renderFrame);
+
 //        btnReturn.setOnClickListener(v -> {
 //            disconnect();
 //            getActivity().getSupportFragmentManager().popBackStack();
@@ -98,43 +157,11 @@ public class Temp extends Fragment implements ServiceConnection, SerialListener
     }
 
     private void setupIMUChart() {
-        // Enable and customize the chart's "description," which acts like a title
-        imuChart.getDescription().setEnabled(true);
-        imuChart.getDescription().setText("IMU Data Analysis");
-        imuChart.getDescription().setTextSize(12f);
-        imuChart.getDescription().setTextColor(Color.WHITE);
-
-        // Enable the legend so the color–label matching is visible
-        imuChart.getLegend().setEnabled(true);
-
-        imuChart.setTouchEnabled(true);
-        imuChart.setDragEnabled(true);
-        imuChart.setScaleEnabled(true);
-
-        imuChart.getLegend().setEnabled(true);
-        imuChart.getLegend().setTextColor(Color.WHITE);
-        imuChart.getLegend().setTextSize(12f);
-
-        // Y-axis settings
-        imuChart.getAxisLeft().setEnabled(true);
-        imuChart.getAxisLeft().setDrawLabels(true);
-        imuChart.getAxisLeft().setTextColor(Color.WHITE);
-        imuChart.getAxisLeft().setTextSize(12f);
-        imuChart.getAxisLeft().setValueFormatter(new ValueFormatter() {
-            @Override
-            public String getFormattedValue(float value) {
-                // Return the formatted string for your Y-axis
-                return String.format(Locale.US, "%.2f", value);
-            }
-        });
-
-        // If you only want the left axis visible, hide the right one
-        imuChart.getAxisRight().setEnabled(false);
-
-        // You can keep your existing code that initializes the LineData, etc.
-        LineData data = new LineData();
-        data.setValueTextColor(Color.WHITE);
-        imuChart.setData(data);
+        imuChart.setChannels(
+                new String[]{"AccX", "AccY", "AccZ"},
+                new int[]{Color.RED, Color.GREEN, Color.BLUE});
+        imuChart.setCapacity(100);
+        imuChart.setAutoScale(true);
     }
 
     private void setupTracking() {
@@ -150,6 +177,12 @@ public class Temp extends Fragment implements ServiceConnection, SerialListener
         });
     }
 
+    @Override
+    public void onDestroyView() {
+        renderScheduler.stop();
+        super.onDestroyView();
+    }
+
     @Override
     public void onResume() {
         super.onResume();
@@ -180,6 +213,9 @@ public class Temp extends Fragment implements ServiceConnection, SerialListener
 
     @Override
     public void onDestroy() {
+        ModelLoader.cancel(terrainModelCallback);
+        if (terrainClassifier != null)
+            terrainClassifier.release();
         if (connected != Connected.False)
             disconnect();
         getActivity().stopService(new Intent(getActivity(), SerialService.class));
@@ -254,13 +290,12 @@ public class Temp extends Fragment implements ServiceConnection, SerialListener
                             float fsr2 = Float.parseFloat(values[4].trim());
                             float fsr3 = Float.parseFloat(values[5].trim());
 
+                            // SerialService already delivers reads on the main thread
                             if (getActivity() != null) {
-                                getActivity().runOnUiThread(() -> {
-                                    updateVisualizations(accX, accY, accZ, fsr1, fsr2, fsr3);
-                                    if (isTracking) {
-                                        saveDataPoint(accX, accY, accZ, fsr1, fsr2, fsr3);
-                                    }
-                                });
+                                updateVisualizations(accX, accY, accZ, fsr1, fsr2, fsr3);
+                                if (isTracking) {
+                                    saveDataPoint(accX, accY, accZ, fsr1, fsr2, fsr3);
+                                }
                             }
                         } catch (NumberFormatException e) {
                             Log.e(TAG, "Error parsing values: " + e.getMessage());
@@ -282,50 +317,43 @@ public class Temp extends Fragment implements ServiceConnection, SerialListener
 
     private void updateVisualizations(float accX, float accY, float accZ,
                                       float fsr1, float fsr2, float fsr3) {
-        // Update heatmap
-        heatmapView.updateValues(new float[]{fsr1, fsr2, fsr3});
+        // Keep the latest pressure values for the heatmap
+        float[] latest = latestFsrValues.edit();
+        latest[0] = fsr1;
+        latest[1] = fsr2;
+        latest[2] = fsr3;
+        latestFsrValues.publish();
 
         // Update IMU chart
-        LineData data = imuChart.getData();
-        if (data != null) {
-            ILineDataSet setX = data.getDataSetByIndex(0);
-            ILineDataSet setY = data.getDataSetByIndex(1);
-            ILineDataSet setZ = data.getDataSetByIndex(2);
-
-            if (setX == null) {
-                setX = createSet("AccX", Color.RED);
-                setY = createSet("AccY", Color.GREEN);
-                setZ = createSet("AccZ", Color.BLUE);
-                data.addDataSet(setX);
-                data.addDataSet(setY);
-                data.addDataSet(setZ);
-            }
-
-            data.addEntry(new Entry(setX.getEntryCount(), accX), 0);
-            data.addEntry(new Entry(setY.getEntryCount(), accY), 1);
-            data.addEntry(new Entry(setZ.getEntryCount(), accZ), 2);
-
-            data.notifyDataChanged();
-            imuChart.notifyDataSetChanged();
-            imuChart.setVisibleXRangeMaximum(100);
-            imuChart.moveViewToX(data.getEntryCount());
+        imuSample[0] = accX;
+        imuSample[1] = accY;
+        imuSample[2] = accZ;
+        imuChart.addSample(imuSample);
 
+        if (terrainClassifier != null) {
+            terrainClassifier.addSample(accX, accY, accZ);
         }
+
+        // Redraw once on the next vsync with everything that arrived since the last frame
+        renderScheduler.requestFrame();
     }
 
-    private LineDataSet createSet(String label, int color) {
-        LineDataSet set = new LineDataSet(null, label);
-        set.setColor(color);
-        set.setLineWidth(2f);
-        set.setDrawCircles(false);
-        set.setDrawValues(false);
-        set.setMode(LineDataSet.Mode.CUBIC_BEZIER);
-        return set;
+    private void renderFrame(long frameTimeNanos) {
+        if (latestFsrValues.poll()) {
+            heatmapView.updateValues(latestFsrValues.values());
+        }
+        if (terrainChanged) {
+            terrainChanged = false;
+            tvTerrain.setText(String.format(Locale.US, "Terrain: %s (%.0f%%)",
+                    terrainLabel, terrainConfidence * 100f));
+        }
+        imuChart.invalidate();
     }
 
     private void startTracking() {
         trackingStartTime = System.currentTimeMillis();
         trackingData.clear();
+        trackingPyramid = new SummaryPyramid(RunColumns.CHANNEL_COUNT);
     }
 
     private void stopTracking() {
@@ -335,7 +363,30 @@ public class Temp extends Fragment implements ServiceConnection, SerialListener
     private void saveDataPoint(float accX, float accY, float accZ,
                                float fsr1, float fsr2, float fsr3) {
         long timestamp = System.currentTimeMillis() - trackingStartTime;
-        trackingData.add(new RunningDataPoint(timestamp, accX, accY, accZ, fsr1, fsr2, fsr3));
+        // Keep what the CSV will hold, so the stored pyramid matches the reloaded run
+        trackingData.add(timestamp, roundForCsv(accX), roundForCsv(accY), roundForCsv(accZ),
+                roundForCsv(fsr1), roundForCsv(fsr2), roundForCsv(fsr3));
+        trackingPyramid.update(trackingData);
+
+        int index = trackingData.size() - 1;
+        if (index == trackingTerrain.length) {
+            trackingTerrain = Arrays.copyOf(trackingTerrain, index * 2);
+            trackingTerrainConfidence = Arrays.copyOf(trackingTerrainConfidence, index * 2);
+        }
+        trackingTerrain[index] = terrainClass;
+        trackingTerrainConfidence[index] = terrainConfidence;
+    }
+
+    /**
+     * Rounds to the two decimals written by {@link #saveTrackingData()}; the CSV
+     * text parses back to exactly this float.
+     */
+    private static float roundForCsv(float value) {
+        return Math.round(value * 100f) / 100f;
+    }
+
+    private String terrainName(int classIndex) {
+        return classIndex < 0 || terrainClassifier == null ? "" : terrainClassifier.getClassName(classIndex);
     }
 
     private File getStorageDir() {
@@ -366,17 +417,29 @@ public class Temp extends Fragment implements ServiceConnection, SerialListener
 
             File file = new File(trackDir, filename);
             FileWriter writer = new FileWriter(file);
-            writer.append("timestamp,accX,accY,accZ,fsr1,fsr2,fsr3\n");
-
-            for (RunningDataPoint point : trackingData) {
-                writer.append(String.format(Locale.US, "%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f\n",
-                        point.timestamp, point.accX, point.accY, point.accZ,
-                        point.fsr1, point.fsr2, point.fsr3));
+            // Terrain columns come last so readers of the first seven are unaffected
+            writer.append("timestamp,accX,accY,accZ,fsr1,fsr2,fsr3,terrain,terrainConfidence\n");
+
+            for (int i = 0; i < trackingData.size(); i++) {
+                writer.append(String.format(Locale.US, "%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%s,%.2f\n",
+                        trackingData.timestampAt(i),
+                        trackingData.valueAt(RunColumns.ACC_X, i),
+                        trackingData.valueAt(RunColumns.ACC_Y, i),
+                        trackingData.valueAt(RunColumns.ACC_Z, i),
+                        trackingData.valueAt(RunColumns.FSR_HEEL, i),
+                        trackingData.valueAt(RunColumns.FSR_MID, i),
+                        trackingData.valueAt(RunColumns.FSR_TOE, i),
+                        terrainName(trackingTerrain[i]),
+                        trackingTerrainConfidence[i]));
             }
 
             writer.flush();
             writer.close();
 
+            // Store the summary pyramid next to the CSV for the analysis screen
+            trackingPyramid.update(trackingData);
+            trackingPyramid.writeTo(SummaryPyramid.fileFor(file));
+
             // Make the file visible to the system's Media Scanner
             MediaScannerConnection.scanFile(getActivity(),
                     new String[]{file.getAbsolutePath()}, null, null);
@@ -56,12 +56,14 @@ public class TerminalFragment extends Fragment implements ServiceConnection, Ser
     private String newline = TextUtil.newline_crlf;
 
     LineChart mpLineChart;
+    StripChartView liveChart;
+    private final float[] liveSample = new float[4];
     LineDataSet lineDataSet1;
     ArrayList<ILineDataSet> dataSets = new ArrayList<>();
     LineData data;
 
-    private float dataIndex = 0;
     private boolean isPlotting = false;
+    private RenderScheduler renderScheduler;
 
     private ArrayList<String[]> dataToSave = new ArrayList<>();
 
@@ -224,11 +226,29 @@ public class TerminalFragment extends Fragment implements ServiceConnection, Ser
         mpLineChart.setVisibleXRangeMaximum(120f);
 
         mpLineChart.invalidate();
-        mpLineChart.setVisibility(View.VISIBLE);
+
+        // Live samples go to the lightweight strip chart, the LineChart shows loaded CSVs
+        liveChart = view.findViewById(R.id.live_chart);
+        liveChart.setChannels(
+                new String[]{"X-axis", "Y-axis", "Z-axis", "Norm"},
+                new int[]{android.graphics.Color.RED, android.graphics.Color.GREEN,
+                        android.graphics.Color.BLUE, android.graphics.Color.YELLOW});
+        liveChart.setCapacity(120);
+        liveChart.setYRange(-20f, 20f);
+
+        renderScheduler = new RenderScheduler();
+        renderScheduler.syncWithPowerSaveMode(requireContext());
+        renderScheduler.addFrameListener(this::renderChartFrame);
 
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        renderScheduler.stop();
+        super.onDestroyView();
+    }
+
     @Override
     public void onCreateOptionsMenu(@NonNull Menu menu, MenuInflater inflater) {
         inflater.inflate(R.menu.menu_terminal, menu);
@@ -444,46 +464,33 @@ public class TerminalFragment extends Fragment implements ServiceConnection, Ser
     }
 
     public void updateChartData(float timestamp, float x, float y, float z, float norm) {
-        if (mpLineChart != null && mpLineChart.getData() != null) {
-            try {
-                LineData data = mpLineChart.getData();
-
-                // Add data points
-                data.addEntry(new Entry(dataIndex, x), 0);
-                data.addEntry(new Entry(dataIndex, y), 1);
-                data.addEntry(new Entry(dataIndex, z), 2);
-                data.addEntry(new Entry(dataIndex, norm), 3);
-                // Remove old data points if we have more than 120 points
-                for (ILineDataSet set : data.getDataSets()) {
-                    while (set.getEntryCount() > 120) {
-                        set.removeFirst();
-                    }
-                }
-
-                // Notify data changes
-                data.notifyDataChanged();
-                mpLineChart.notifyDataSetChanged();
-
-                // Move the view to show latest data
-                float visibleRange = 120f;
-                mpLineChart.setVisibleXRange(0, visibleRange);
-                if (dataIndex > visibleRange) {
-                    mpLineChart.moveViewToX(dataIndex - visibleRange);
-                }
-
-                // Force redraw
-                mpLineChart.invalidate();
-
-                dataIndex++;
+        if (liveChart != null) {
+            liveSample[0] = x;
+            liveSample[1] = y;
+            liveSample[2] = z;
+            liveSample[3] = norm;
+            liveChart.addSample(liveSample);
+
+            // Redraw once on the next vsync with everything added since the last frame
+            renderScheduler.requestFrame();
+        }
+    }
 
-            } catch (Exception e) {
-                Log.e("TerminalFragment", "Error updating chart: " + e.getMessage());
-            }
+    private void renderChartFrame(long frameTimeNanos) {
+        if (liveChart != null) {
+            liveChart.invalidate();
         }
     }
 
+    private void showLiveChart(boolean live) {
+        if (liveChart == null || mpLineChart == null) return;
+        liveChart.setVisibility(live ? View.VISIBLE : View.GONE);
+        mpLineChart.setVisibility(live ? View.GONE : View.VISIBLE);
+    }
+
     public void startPlotting() {
         isPlotting = true;
+        showLiveChart(true);
         startTime = System.currentTimeMillis();
         experimentStartTime = new java.text.SimpleDateFormat("dd/M/yyyy HH:mm")
             .format(new java.util.Date());
@@ -516,9 +523,6 @@ public class TerminalFragment extends Fragment implements ServiceConnection, Ser
                 set.clear();
             }
 
-            // Reset index
-            dataIndex = 0;
-
             // Reset view to start
             mpLineChart.moveViewToX(0);
             mpLineChart.setVisibleXRangeMaximum(120f);
@@ -555,6 +559,9 @@ public class TerminalFragment extends Fragment implements ServiceConnection, Ser
 
             Log.d("TerminalFragment", "Chart cleared and reset to start");
         }
+        if (liveChart != null) {
+            liveChart.clear();
+        }
     }
 
     private void configureDataSet(LineDataSet dataSet, int color) {
@@ -703,6 +710,7 @@ public class TerminalFragment extends Fragment implements ServiceConnection, Ser
             mpLineChart.moveViewToX(0);  // Start at the beginning
             mpLineChart.notifyDataSetChanged();
             mpLineChart.invalidate();
+            showLiveChart(false);
             
             csvReader.close();
             reader.close();
@@ -0,0 +1,259 @@
+package com.example.feetmap;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.github.mikephil.charting.charts.LineChart;
+import com.github.mikephil.charting.components.YAxis;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.interfaces.datasets.ILineDataSet;
+import com.github.mikephil.charting.renderer.LineChartRenderer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Line renderer that builds its geometry on a worker thread.
+ *
+ * The entries currently in the chart (the visible window and its neighbours, see
+ * {@link ColumnChartAdapter}) are converted to pixel-space line segments in the
+ * background for the current zoom level. While the zoom stays the same, drawing
+ * is a translated {@code drawLines} per data set, so drags never rebuild paths on
+ * the UI thread. After a zoom the stock renderer draws until the new geometry
+ * arrives. All data sets are assumed to use the left axis.
+ */
+public class TessellatedLineRenderer extends LineChartRenderer {
+    private static final float SCALE_TOLERANCE = 1e-4f;
+
+    /**
+     * Entry snapshot and the segments built from it. Owned by the worker while a
+     * build is in flight, by the UI thread otherwise.
+     */
+    private static class Geometry {
+        float[][] xs = new float[0][];
+        float[][] ys = new float[0][];
+        int[] counts = new int[0];
+        float[][] vertices = new float[0][];
+        int[] vertexCounts = new int[0];
+        int[] colors = new int[0];
+        float[] widths = new float[0];
+        boolean[] visible = new boolean[0];
+        final float[] matrix = new float[9];
+        int setCount;
+        int version = -1;
+
+        void ensureSets(int sets) {
+            if (xs.length >= sets) return;
+            xs = new float[sets][0];
+            ys = new float[sets][0];
+            counts = new int[sets];
+            vertices = new float[sets][0];
+            vertexCounts = new int[sets];
+            colors = new int[sets];
+            widths = new float[sets];
+            visible = new boolean[sets];
+        }
+    }
+
+    private final LineChart chart;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint cursorPaint = new Paint();
+    private final float[] currentMatrix = new float[9];
+    private final float[] cursorPoint = new float[2];
+    private float cursorX = Float.NaN;
+
+    private Geometry front = new Geometry();
+    private Geometry back = new Geometry();
+    private Geometry inFlight;
+    private boolean rebuildRequested;
+    private boolean released;
+    private int dataVersion;
+
+    public TessellatedLineRenderer(LineChart chart) {
+        super(chart, chart.getAnimator(), chart.getViewPortHandler());
+        this.chart = chart;
+        linePaint.setStyle(Paint.Style.STROKE);
+        cursorPaint.setColor(Color.WHITE);
+        cursorPaint.setStrokeWidth(2f);
+    }
+
+    /**
+     * Draws a vertical cursor at chart value {@code x}, or none for {@code NaN}.
+     */
+    public void setCursor(float x) {
+        if (Float.compare(x, cursorX) == 0) return;
+        cursorX = x;
+        chart.invalidate();
+    }
+
+    /**
+     * Call after the chart's entries changed. The current geometry is dropped and
+     * rebuilt in the background.
+     */
+    public void onDataChanged() {
+        dataVersion++;
+        requestGeometry();
+    }
+
+    /**
+     * Stops the worker. The renderer falls back to the stock drawing afterwards.
+     */
+    public void release() {
+        released = true;
+        worker.shutdownNow();
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+
+    @Override
+    public void drawData(Canvas c) {
+        LineData data = mChart.getLineData();
+        if (data == null) return;
+
+        Matrix valueToPixel = mChart.getTransformer(YAxis.AxisDependency.LEFT).getValueToPixelMatrix();
+        valueToPixel.getValues(currentMatrix);
+
+        Geometry geometry = front;
+        if (released || !matches(geometry, data)) {
+            super.drawData(c);
+            if (inFlight == null || !matches(inFlight, data)) {
+                requestGeometry();
+            }
+            return;
+        }
+
+        // Same zoom as when the segments were built, only the offset moved
+        c.save();
+        c.translate(currentMatrix[Matrix.MTRANS_X] - geometry.matrix[Matrix.MTRANS_X],
+                currentMatrix[Matrix.MTRANS_Y] - geometry.matrix[Matrix.MTRANS_Y]);
+        for (int i = 0; i < geometry.setCount; i++) {
+            if (!geometry.visible[i] || geometry.vertexCounts[i] == 0) continue;
+            linePaint.setColor(geometry.colors[i]);
+            linePaint.setStrokeWidth(geometry.widths[i]);
+            c.drawLines(geometry.vertices[i], 0, geometry.vertexCounts[i], linePaint);
+        }
+        c.restore();
+    }
+
+    @Override
+    public void drawExtras(Canvas c) {
+        super.drawExtras(c);
+        if (Float.isNaN(cursorX)) return;
+
+        cursorPoint[0] = cursorX;
+        cursorPoint[1] = 0f;
+        mChart.getTransformer(YAxis.AxisDependency.LEFT).pointValuesToPixel(cursorPoint);
+        float x = cursorPoint[0];
+        if (x < mViewPortHandler.contentLeft() || x > mViewPortHandler.contentRight()) return;
+        c.drawLine(x, mViewPortHandler.contentTop(), x, mViewPortHandler.contentBottom(), cursorPaint);
+    }
+
+    private boolean matches(Geometry geometry, LineData data) {
+        return geometry.version == dataVersion
+                && geometry.setCount == data.getDataSetCount()
+                && sameScale(geometry.matrix[Matrix.MSCALE_X], currentMatrix[Matrix.MSCALE_X])
+                && sameScale(geometry.matrix[Matrix.MSCALE_Y], currentMatrix[Matrix.MSCALE_Y]);
+    }
+
+    private static boolean sameScale(float a, float b) {
+        return Math.abs(a - b) <= Math.abs(b) * SCALE_TOLERANCE;
+    }
+
+    private void requestGeometry() {
+        if (released) return;
+        if (inFlight != null) {
+            rebuildRequested = true;
+            return;
+        }
+        LineData data = chart.getLineData();
+        if (data == null) return;
+
+        Geometry target = back;
+        snapshot(data, target);
+        inFlight = target;
+        worker.execute(() -> {
+            tessellate(target);
+            mainHandler.post(() -> onGeometryBuilt(target));
+        });
+    }
+
+    /**
+     * Copies the entries and the current value-to-pixel matrix on the UI thread so
+     * the worker never touches the chart's data sets.
+     */
+    private void snapshot(LineData data, Geometry target) {
+        chart.getTransformer(YAxis.AxisDependency.LEFT).getValueToPixelMatrix().getValues(target.matrix);
+
+        int sets = data.getDataSetCount();
+        target.ensureSets(sets);
+        target.setCount = sets;
+        target.version = dataVersion;
+        for (int i = 0; i < sets; i++) {
+            ILineDataSet set = data.getDataSetByIndex(i);
+            int n = set.getEntryCount();
+            if (target.xs[i].length < n) {
+                target.xs[i] = new float[n];
+                target.ys[i] = new float[n];
+            }
+            for (int j = 0; j < n; j++) {
+                Entry entry = set.getEntryForIndex(j);
+                target.xs[i][j] = entry.getX();
+                target.ys[i][j] = entry.getY();
+            }
+            target.counts[i] = n;
+            target.colors[i] = set.getColor();
+            target.widths[i] = set.getLineWidth();
+            target.visible[i] = set.isVisible();
+        }
+    }
+
+    private static void tessellate(Geometry geometry) {
+        float[] m = geometry.matrix;
+        for (int i = 0; i < geometry.setCount; i++) {
+            int n = geometry.counts[i];
+            int length = Math.max(0, n - 1) * 4;
+            if (geometry.vertices[i].length < length) {
+                geometry.vertices[i] = new float[length];
+            }
+            float[] xs = geometry.xs[i];
+            float[] ys = geometry.ys[i];
+            float[] out = geometry.vertices[i];
+
+            float prevX = 0f;
+            float prevY = 0f;
+            int v = 0;
+            for (int j = 0; j < n; j++) {
+                float px = xs[j] * m[Matrix.MSCALE_X] + ys[j] * m[Matrix.MSKEW_X] + m[Matrix.MTRANS_X];
+                float py = xs[j] * m[Matrix.MSKEW_Y] + ys[j] * m[Matrix.MSCALE_Y] + m[Matrix.MTRANS_Y];
+                if (j > 0) {
+                    out[v++] = prevX;
+                    out[v++] = prevY;
+                    out[v++] = px;
+                    out[v++] = py;
+                }
+                prevX = px;
+                prevY = py;
+            }
+            geometry.vertexCounts[i] = v;
+        }
+    }
+
+    private void onGeometryBuilt(Geometry built) {
+        if (released) return;
+        inFlight = null;
+        back = front;
+        front = built;
+        chart.invalidate();
+
+        if (rebuildRequested) {
+            rebuildRequested = false;
+            requestGeometry();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.feetmap;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, non-overlapping time intervals with O(log n) lookup by time and O(1)
+ * maximum-intensity queries over any run of consecutive intervals.
+ *
+ * Because the intervals never overlap, both the start and the end columns are
+ * sorted, so culling to a time range and hit testing are plain binary searches.
+ * Call {@link #build()} after the last {@link #add} and before querying.
+ */
+public class TimelineIndex {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private long[] ends = new long[INITIAL_CAPACITY];
+    private int[] colors = new int[INITIAL_CAPACITY];
+    private float[] intensities = new float[INITIAL_CAPACITY];
+    private int size;
+    // maxTable[k][i] = max intensity of intervals [i, i + 2^k)
+    private float[][] maxTable = new float[0][];
+
+    public void clear() {
+        size = 0;
+        maxTable = new float[0][];
+    }
+
+    public void add(long start, long end, int color, float intensity) {
+        if (end < start || (size > 0 && start < ends[size - 1])) {
+            throw new IllegalArgumentException("Intervals must be sorted and disjoint");
+        }
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            colors = Arrays.copyOf(colors, capacity);
+            intensities = Arrays.copyOf(intensities, capacity);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        colors[size] = color;
+        intensities[size] = intensity;
+        size++;
+    }
+
+    /**
+     * Builds the range-maximum table over the intensities.
+     */
+    public void build() {
+        int levels = 1;
+        while ((1 << levels) <= size) levels++;
+        maxTable = new float[levels][];
+        maxTable[0] = Arrays.copyOf(intensities, size);
+        for (int k = 1; k < levels; k++) {
+            int half = 1 << (k - 1);
+            int count = size - (1 << k) + 1;
+            float[] previous = maxTable[k - 1];
+            float[] current = new float[Math.max(0, count)];
+            for (int i = 0; i < count; i++) {
+                current[i] = Math.max(previous[i], previous[i + half]);
+            }
+            maxTable[k] = current;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long startAt(int index) {
+        return starts[index];
+    }
+
+    public long endAt(int index) {
+        return ends[index];
+    }
+
+    public int colorAt(int index) {
+        return colors[index];
+    }
+
+    /**
+     * Index of the first interval ending at or after {@code time}, or {@link #size()}.
+     */
+    public int firstEndingAtOrAfter(long time) {
+        return lowerBound(ends, time);
+    }
+
+    /**
+     * Index of the first interval starting at or after {@code time}, or {@link #size()}.
+     */
+    public int firstStartingAtOrAfter(long time) {
+        return lowerBound(starts, time);
+    }
+
+    /**
+     * Index of the interval containing {@code time}, or -1.
+     */
+    public int indexAt(long time) {
+        int i = firstEndingAtOrAfter(time);
+        return i < size && starts[i] <= time ? i : -1;
+    }
+
+    /**
+     * Maximum intensity of intervals {@code from..to}, both inclusive.
+     */
+    public float maxIntensity(int from, int to) {
+        int level = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+        return Math.max(maxTable[level][from], maxTable[level][to - (1 << level) + 1]);
+    }
+
+    private int lowerBound(long[] values, long key) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.feetmap;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the custom views' onDraw against a recording canvas and fails if
+ * steady-state frames allocate.
+ *
+ * The thread's allocation counter also picks up the odd allocation made by the
+ * JVM and Robolectric themselves, a few hundred bytes in a single frame now and
+ * then. A draw pass that allocates does so on every frame, so the check is on the
+ * number of frames that allocated rather than on an exact byte total.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 29)
+public class DrawAllocationTest {
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final int WARMUP_FRAMES = 500;
+    private static final int MEASURED_FRAMES = 200;
+    // Frames allowed to show allocations that are not the view's
+    private static final int MAX_NOISY_FRAMES = MEASURED_FRAMES / 20;
+
+    private interface FrameUpdate {
+        void update(int frame);
+    }
+
+    private Context context;
+    private RecordingCanvas canvas;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        canvas = new RecordingCanvas();
+    }
+
+    @Test
+    public void heatmapView_drawDoesNotAllocate() {
+        HeatmapView view = new HeatmapView(context, null);
+        view.setFootImage(R.mipmap.footpic);
+        layout(view);
+
+        float[] values = new float[3];
+        assertDrawDoesNotAllocate("HeatmapView", frame -> {
+            fill(values, frame, 1f);
+            view.updateValues(values);
+        }, () -> view.onDraw(canvas));
+    }
+
+    @Test
+    public void footHeatmapView_drawDoesNotAllocate() {
+        FootHeatmapView view = new FootHeatmapView(context, null);
+        view.setFootImage(R.mipmap.footpic);
+        layout(view);
+
+        float[] values = new float[3];
+        assertDrawDoesNotAllocate("FootHeatmapView", frame -> {
+            fill(values, frame, 1023f);
+            view.updateValues(values);
+        }, () -> view.onDraw(canvas));
+    }
+
+    @Test
+    public void fsrCircleView_drawDoesNotAllocate() {
+        FSRCircleView view = new FSRCircleView(context, null);
+        layout(view);
+
+        float[] values = new float[3];
+        assertDrawDoesNotAllocate("FSRCircleView", frame -> {
+            fill(values, frame, 1000f);
+            view.setValues(values);
+        }, () -> view.onDraw(canvas));
+    }
+
+    @Test
+    public void runTimelineView_drawDoesNotAllocate() {
+        RunTimelineView view = new RunTimelineView(context, null);
+        RunColumns columns = new RunColumns();
+        for (int i = 0; i < 5000; i++) {
+            // Alternate heel strikes and toe-offs so the timeline has segments
+            boolean heel = (i / 50) % 2 == 0;
+            columns.add(i * 10L, 0f, 0f, 9.8f, heel ? 0.9f : 0.1f, 0.2f, heel ? 0.1f : 0.8f);
+        }
+        view.setData(columns);
+        layout(view);
+
+        assertDrawDoesNotAllocate("RunTimelineView", frame ->
+                view.setVisibleWindow(frame * 10L, frame * 10L + 2000L), () -> view.onDraw(canvas));
+    }
+
+    @Test
+    public void stripChartView_drawDoesNotAllocate() {
+        StripChartView view = new StripChartView(context, null);
+        view.setChannels(new String[]{"X", "Y", "Z"}, new int[]{Color.RED, Color.GREEN, Color.BLUE});
+        view.setCapacity(100);
+        view.setAutoScale(true);
+        layout(view);
+
+        float[] sample = new float[3];
+        assertDrawDoesNotAllocate("StripChartView", frame -> {
+            fill(sample, frame, 20f);
+            view.addSample(sample);
+        }, () -> view.onDraw(canvas));
+    }
+
+    private static void layout(View view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+    private static void fill(float[] values, int frame, float scale) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ((frame * (i + 3)) % 100) / 100f * scale;
+        }
+    }
+
+    /**
+     * Runs {@code update} outside and {@code draw} inside the measured region for
+     * every frame, after a warm-up long enough for caches and lazy init to settle.
+     */
+    private void assertDrawDoesNotAllocate(String name, FrameUpdate update, Runnable draw) {
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            update.update(i);
+            draw.run();
+        }
+
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long before = allocatedBytes();
+            overhead = Math.min(overhead, allocatedBytes() - before);
+        }
+
+        int drawCallsBefore = canvas.drawCalls;
+        int allocatingFrames = 0;
+        long allocated = 0;
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            update.update(WARMUP_FRAMES + i);
+            long before = allocatedBytes();
+            draw.run();
+            long frameBytes = allocatedBytes() - before - overhead;
+            if (frameBytes > 0) {
+                allocatingFrames++;
+                allocated += frameBytes;
+            }
+        }
+
+        assertTrue(name + " did not draw anything", canvas.drawCalls > drawCallsBefore);
+        assertTrue(name + " allocated " + allocated + " bytes in " + allocatingFrames + " of "
+                        + MEASURED_FRAMES + " onDraw calls",
+                allocatingFrames <= MAX_NOISY_FRAMES);
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Counts draw operations without rendering, so only the views' own work is measured.
+     */
+    private static class RecordingCanvas extends Canvas {
+        int drawCalls;
+        int saveCount = 1;
+
+        @Override
+        public int save() {
+            return saveCount++;
+        }
+
+        @Override
+        public void restore() {
+            saveCount--;
+        }
+
+        @Override
+        public void restoreToCount(int count) {
+            saveCount = count;
+        }
+
+        @Override
+        public void translate(float dx, float dy) {
+        }
+
+        @Override
+        public boolean clipRect(RectF rect) {
+            return true;
+        }
+
+        @Override
+        public boolean clipRect(float left, float top, float right, float bottom) {
+            return true;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawRect(RectF rect, Paint paint) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawLines(float[] pts, Paint paint) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawLines(float[] pts, int offset, int count, Paint paint) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+            drawCalls++;
+        }
+    }
+}
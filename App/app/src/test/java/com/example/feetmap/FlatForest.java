@@ -0,0 +1,174 @@
+package com.example.feetmap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Full-precision random forest flattened into primitive arrays, the reference the
+ * unit tests check the quantized and generated forests against. The app ships only
+ * {@link QuantizedForest}.
+ *
+ * The forest is compiled from {@code src/model/model.json} by the
+ * {@code generateForestModel} Gradle task into {@code build/generated/model}, which
+ * is not packaged.
+ *
+ * Every tree's nodes are stored back to back, with child indices rewritten to
+ * absolute positions, so a prediction is a tight loop over {@code int[]} and
+ * {@code float[]} with no lookups or boxing. A leaf is marked by a negative left
+ * child and carries the class distribution of its training samples, normalized to
+ * sum to one. Probabilities are the mean of the leaf distributions over all trees,
+ * as in scikit-learn's {@code predict_proba}.
+ */
+public class FlatForest implements ForestEvaluator {
+    private static final int MAGIC = 0x464d5246; // "FMRF"
+    private static final int VERSION = 1;
+
+    private final String[] classes;
+    private final String[] featureNames;
+    private final int classCount;
+    private final int featureCount;
+    private final int[] roots;
+    private final int[] left;
+    private final int[] right;
+    private final int[] feature;
+    private final float[] threshold;
+    // classCount entries per node, only filled for leaves
+    private final float[] leafValues;
+
+    FlatForest(String[] classes, String[] featureNames, int[] roots, int[] left, int[] right,
+               int[] feature, float[] threshold, float[] leafValues) {
+        this.classes = classes;
+        this.featureNames = featureNames;
+        this.classCount = classes.length;
+        this.featureCount = featureNames.length;
+        this.roots = roots;
+        this.left = left;
+        this.right = right;
+        this.feature = feature;
+        this.threshold = threshold;
+        this.leafValues = leafValues;
+    }
+
+    /**
+     * Reads the binary forest format: names first, then every array in node order,
+     * so each array is a single bulk copy.
+     */
+    public static FlatForest read(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a forest model file");
+        }
+        String[] classes = readStrings(buffer);
+        String[] featureNames = readStrings(buffer);
+        int treeCount = buffer.getInt();
+        int nodeCount = buffer.getInt();
+
+        int[] roots = readInts(buffer, treeCount);
+        int[] left = readInts(buffer, nodeCount);
+        int[] right = readInts(buffer, nodeCount);
+        int[] feature = readInts(buffer, nodeCount);
+        float[] threshold = readFloats(buffer, nodeCount);
+        float[] leafValues = readFloats(buffer, nodeCount * classes.length);
+        return new FlatForest(classes, featureNames, roots, left, right, feature, threshold, leafValues);
+    }
+
+    private static String[] readStrings(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            // DataOutputStream.writeUTF, the names are plain ASCII
+            byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * 4);
+        return values;
+    }
+
+    private static float[] readFloats(ByteBuffer buffer, int count) {
+        float[] values = new float[count];
+        buffer.asFloatBuffer().get(values);
+        buffer.position(buffer.position() + count * 4);
+        return values;
+    }
+
+    public String[] getClasses() {
+        return classes;
+    }
+
+    public String[] getFeatureNames() {
+        return featureNames;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public int getFeatureCount() {
+        return featureCount;
+    }
+
+    public int getTreeCount() {
+        return roots.length;
+    }
+
+    public int getNodeCount() {
+        return left.length;
+    }
+
+    @Override
+    public void predictProba(float[] features, float[] out) {
+        for (int c = 0; c < classCount; c++) {
+            out[c] = 0f;
+        }
+        for (int t = 0; t < roots.length; t++) {
+            int node = roots[t];
+            while (left[node] >= 0) {
+                node = features[feature[node]] <= threshold[node] ? left[node] : right[node];
+            }
+            int values = node * classCount;
+            for (int c = 0; c < classCount; c++) {
+                out[c] += leafValues[values + c];
+            }
+        }
+        float scale = 1f / roots.length;
+        for (int c = 0; c < classCount; c++) {
+            out[c] *= scale;
+        }
+    }
+
+    @Override
+    public int predictProba(float[] features, float[] out, boolean exitWhenDecided, float confidenceBound) {
+        for (int c = 0; c < classCount; c++) {
+            out[c] = 0f;
+        }
+        int trees = roots.length;
+        boolean enabled = exitWhenDecided || confidenceBound <= 1f;
+        int used = 0;
+        while (used < trees) {
+            int node = roots[used];
+            while (left[node] >= 0) {
+                node = features[feature[node]] <= threshold[node] ? left[node] : right[node];
+            }
+            int values = node * classCount;
+            for (int c = 0; c < classCount; c++) {
+                out[c] += leafValues[values + c];
+            }
+            used++;
+            if (enabled && used < trees && EarlyExit.isCheckpoint(used)
+                    && EarlyExit.canStop(out, classCount, used, trees, exitWhenDecided, confidenceBound)) {
+                break;
+            }
+        }
+        float scale = 1f / used;
+        for (int c = 0; c < classCount; c++) {
+            out[c] *= scale;
+        }
+        return used;
+    }
+}
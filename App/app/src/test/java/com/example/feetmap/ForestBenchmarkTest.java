@@ -0,0 +1,146 @@
+package com.example.feetmap;
+
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the generated straight-line forest with the {@link QuantizedForest}
+ * interpreter it is compiled from on the same feature windows: the probabilities,
+ * and with early exit the trees used, must match exactly. Every evaluator, the
+ * full-precision {@link FlatForest} included, must also return its full evaluation
+ * when early exit is disabled. The time per window of each is reported by the
+ * ignored {@link #benchmark()}.
+ */
+public class ForestBenchmarkTest {
+    // Test-only reference written by the generateForestModel task, relative to the module directory
+    private static final File FOREST_FILE = new File("build/generated/model/forest.bin");
+    private static final File QUANTIZED_FILE = new File("build/generated/assets/model/forest-q.bin");
+    private static final int WINDOWS = 10_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+
+    private static FlatForest full;
+    private static QuantizedForest interpreter;
+    private static ForestEvaluator generated;
+    private static float[][] windows;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        full = FlatForest.read(ByteBuffer.wrap(Files.readAllBytes(FOREST_FILE.toPath())));
+        interpreter = QuantizedForest.read(ByteBuffer.wrap(Files.readAllBytes(QUANTIZED_FILE.toPath())));
+        generated = new GeneratedForest(interpreter);
+
+        // Accelerometer statistics in m/s^2, roughly the range seen while walking
+        Random random = new Random(42);
+        windows = new float[WINDOWS][interpreter.getFeatureCount()];
+        for (float[] window : windows) {
+            for (int i = 0; i < window.length; i++) {
+                window[i] = (float) (random.nextGaussian() * 6.0);
+            }
+        }
+    }
+
+    @Test
+    public void generatedMatchesInterpreter() {
+        float[] expected = new float[interpreter.getClassCount()];
+        float[] actual = new float[interpreter.getClassCount()];
+        for (float[] window : windows) {
+            interpreter.predictProba(window, expected);
+            generated.predictProba(window, actual);
+            for (int c = 0; c < expected.length; c++) {
+                assertEquals(expected[c], actual[c], 0f);
+            }
+        }
+    }
+
+    @Test
+    public void generatedEarlyExitMatchesInterpreter() {
+        float[] expected = new float[interpreter.getClassCount()];
+        float[] actual = new float[interpreter.getClassCount()];
+        boolean[] decided = {true, true, false};
+        float[] bounds = {0.8f, 2f, 0.8f};
+        for (float[] window : windows) {
+            for (int mode = 0; mode < bounds.length; mode++) {
+                int expectedTrees = interpreter.predictProba(window, expected, decided[mode], bounds[mode]);
+                int actualTrees = generated.predictProba(window, actual, decided[mode], bounds[mode]);
+                assertEquals(expectedTrees, actualTrees);
+                for (int c = 0; c < expected.length; c++) {
+                    assertEquals(expected[c], actual[c], 0f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void disabledEarlyExitMatchesFullEvaluation() {
+        ForestEvaluator[] evaluators = {full, interpreter, generated};
+        float[] expected = new float[interpreter.getClassCount()];
+        float[] actual = new float[interpreter.getClassCount()];
+        for (ForestEvaluator evaluator : evaluators) {
+            String name = evaluator.getClass().getSimpleName();
+            for (float[] window : windows) {
+                evaluator.predictProba(window, expected);
+                int trees = evaluator.predictProba(window, actual, false, 2f);
+                assertEquals(name, interpreter.getTreeCount(), trees);
+                for (int c = 0; c < expected.length; c++) {
+                    assertEquals(name, expected[c], actual[c], 0f);
+                }
+            }
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark, asserts nothing; run by hand when changing the forest code")
+    public void benchmark() {
+        float[] out = new float[interpreter.getClassCount()];
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(full, out);
+            run(interpreter, out);
+            run(generated, out);
+            runEarlyExit(generated, out);
+        }
+
+        long fullNanos = Long.MAX_VALUE;
+        long interpreterNanos = Long.MAX_VALUE;
+        long generatedNanos = Long.MAX_VALUE;
+        long earlyExitNanos = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            fullNanos = Math.min(fullNanos, run(full, out));
+            interpreterNanos = Math.min(interpreterNanos, run(interpreter, out));
+            generatedNanos = Math.min(generatedNanos, run(generated, out));
+            earlyExitNanos = Math.min(earlyExitNanos, runEarlyExit(generated, out));
+        }
+
+        System.out.printf("Forest per window: full precision %.0f ns, quantized interpreter %.0f ns, "
+                        + "generated %.0f ns, generated with early exit %.0f ns%n",
+                fullNanos / (double) WINDOWS, interpreterNanos / (double) WINDOWS,
+                generatedNanos / (double) WINDOWS,
+                earlyExitNanos / (double) WINDOWS);
+    }
+
+    private static long run(ForestEvaluator evaluator, float[] out) {
+        long start = System.nanoTime();
+        for (float[] window : windows) {
+            evaluator.predictProba(window, out);
+        }
+        return System.nanoTime() - start;
+    }
+
+    // Same settings as LiveClassifier under battery saver
+    private static long runEarlyExit(ForestEvaluator evaluator, float[] out) {
+        long start = System.nanoTime();
+        for (float[] window : windows) {
+            evaluator.predictProba(window, out, true, 0.8f);
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.feetmap;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the quantized forest against the full-precision {@link FlatForest} on
+ * sessions run through the feature extractor and on random windows. Binning is
+ * exact, so the same leaves are reached and each class probability may only differ
+ * by the leaf rounding of half a step in 255; the predicted class must agree
+ * whenever the top two classes are further apart than that.
+ */
+public class QuantizedForestParityTest {
+    // Written by the generateForestModel task, relative to the module directory
+    private static final File FOREST_FILE = new File("build/generated/model/forest.bin");
+    private static final File QUANTIZED_FILE = new File("build/generated/assets/model/forest-q.bin");
+    private static final float TOLERANCE = 0.5f / 255f + 1e-6f;
+    private static final int WINDOW_LENGTH = 60;
+    private static final int HOP = 3;
+    private static final int SESSION_SAMPLES = 30 * 120;
+    private static final int RANDOM_WINDOWS = 10_000;
+
+    private static FlatForest full;
+    private static QuantizedForest quantized;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        full = FlatForest.read(ByteBuffer.wrap(Files.readAllBytes(FOREST_FILE.toPath())));
+        quantized = QuantizedForest.read(ByteBuffer.wrap(Files.readAllBytes(QUANTIZED_FILE.toPath())));
+    }
+
+    @Test
+    public void sameModelShape() {
+        assertEquals(full.getClassCount(), quantized.getClassCount());
+        assertEquals(full.getFeatureCount(), quantized.getFeatureCount());
+        for (int f = 0; f < full.getFeatureCount(); f++) {
+            assertEquals(full.getFeatureNames()[f], quantized.getFeatureNames()[f]);
+        }
+    }
+
+    @Test
+    public void walkingSessionMatches() {
+        assertParity(session(false, 1), "walking");
+    }
+
+    @Test
+    public void stairsSessionMatches() {
+        assertParity(session(true, 2), "stairs");
+    }
+
+    @Test
+    public void randomWindowsMatch() {
+        // Accelerometer statistics in m/s^2, roughly the range seen while walking
+        Random random = new Random(42);
+        int features = full.getFeatureCount();
+        float[] windows = new float[RANDOM_WINDOWS * features];
+        for (int i = 0; i < windows.length; i++) {
+            windows[i] = (float) (random.nextGaussian() * 6.0);
+        }
+        assertParity(windows, "random");
+    }
+
+    @Test
+    public void batchMatchesSingleWindows() {
+        float[] windows = session(false, 3);
+        int features = quantized.getFeatureCount();
+        int classes = quantized.getClassCount();
+        int count = windows.length / features;
+        float[] batch = new BatchPredictor(quantized).predictProba(windows);
+
+        float[] window = new float[features];
+        float[] single = new float[classes];
+        for (int w = 0; w < count; w++) {
+            System.arraycopy(windows, w * features, window, 0, features);
+            quantized.predictProba(window, single);
+            for (int c = 0; c < classes; c++) {
+                assertEquals("window " + w, single[c], batch[w * classes + c], 0f);
+            }
+        }
+    }
+
+    @Test
+    public void thresholdValuesFallOnTheLeftBranch() {
+        // Windows built from the cut points themselves, where x <= threshold is a tie
+        int features = full.getFeatureCount();
+        float[] window = new float[features];
+        float[] expected = new float[full.getClassCount()];
+        float[] actual = new float[full.getClassCount()];
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            for (int f = 0; f < features; f++) {
+                float[] cuts = quantized.getCuts(f);
+                window[f] = cuts[random.nextInt(cuts.length)];
+            }
+            full.predictProba(window, expected);
+            quantized.predictProba(window, actual);
+            for (int c = 0; c < expected.length; c++) {
+                assertEquals("tie window " + i, expected[c], actual[c], TOLERANCE);
+            }
+        }
+    }
+
+    private static void assertParity(float[] windows, String name) {
+        int features = full.getFeatureCount();
+        int classes = full.getClassCount();
+        int count = windows.length / features;
+        assertTrue(name + " produced no windows", count > 0);
+
+        float[] window = new float[features];
+        float[] expected = new float[classes];
+        float[] actual = new float[classes];
+        for (int w = 0; w < count; w++) {
+            System.arraycopy(windows, w * features, window, 0, features);
+            full.predictProba(window, expected);
+            quantized.predictProba(window, actual);
+            for (int c = 0; c < classes; c++) {
+                assertEquals(name + " window " + w, expected[c], actual[c], TOLERANCE);
+            }
+            int label = argMax(expected);
+            if (margin(expected, label) > 2 * TOLERANCE) {
+                assertEquals(name + " label of window " + w, label, argMax(actual));
+            }
+        }
+    }
+
+    /**
+     * Features of a synthetic session: a step every ~1 s with the foot's swing on
+     * the forward axis and impact on the vertical one, climbing steps being slower,
+     * harder on the vertical axis and tilted.
+     */
+    private static float[] session(boolean stairs, long seed) {
+        Random random = new Random(seed);
+        RunColumns columns = new RunColumns();
+        double stepHz = stairs ? 0.8 : 1.0;
+        double impact = stairs ? 6.0 : 3.5;
+        double tilt = stairs ? 2.5 : 0.5;
+        for (int i = 0; i < SESSION_SAMPLES; i++) {
+            double t = i / 30.0;
+            double phase = 2 * Math.PI * stepHz * t;
+            float x = (float) (3.0 * Math.sin(phase) + random.nextGaussian() * 0.8);
+            float y = (float) (tilt + 0.8 * Math.sin(2 * phase) + random.nextGaussian() * 0.5);
+            float z = (float) (9.8 + impact * Math.max(0, Math.sin(phase)) + random.nextGaussian());
+            columns.add(i * 33L, x, y, z, 0f, 0f, 0f);
+        }
+        return new BatchPredictor(quantized).extractWindows(columns, WINDOW_LENGTH, HOP);
+    }
+
+    private static int argMax(float[] values) {
+        int best = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[best]) best = i;
+        }
+        return best;
+    }
+
+    private static float margin(float[] values, int best) {
+        float runnerUp = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < values.length; i++) {
+            if (i != best) runnerUp = Math.max(runnerUp, values[i]);
+        }
+        return values[best] - runnerUp;
+    }
+}
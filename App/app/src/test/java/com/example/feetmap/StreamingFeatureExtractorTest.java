@@ -0,0 +1,172 @@
+package com.example.feetmap;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares {@link StreamingFeatureExtractor}, and through it {@link SlidingMedian},
+ * with recomputing every window from scratch. Maximum, minimum and median must
+ * match exactly; the mean comes from a running sum and may differ by rounding.
+ */
+public class StreamingFeatureExtractorTest {
+    // Deliberately not in FeatureVector's order, so the slot mapping is exercised too
+    private static final String[] FEATURE_NAMES = {
+            "mean_z", "max_x", "min_y", "median_x", "max_z", "mean_x",
+            "min_x", "median_z", "mean_y", "max_y", "median_y", "min_z"
+    };
+    private static final int SAMPLES = 3000;
+    private static final float MEAN_TOLERANCE = 1e-4f;
+
+    @Test
+    public void oddWindows() {
+        assertMatchesBruteForce(7, 1, gaussian(1), "odd window, hop 1");
+        assertMatchesBruteForce(61, 3, gaussian(2), "odd window, hop 3");
+    }
+
+    @Test
+    public void evenWindows() {
+        assertMatchesBruteForce(8, 1, gaussian(3), "even window, hop 1");
+        assertMatchesBruteForce(60, 3, gaussian(4), "even window, hop 3");
+    }
+
+    @Test
+    public void singleSampleWindows() {
+        assertMatchesBruteForce(1, 1, gaussian(5), "window of 1");
+        assertMatchesBruteForce(2, 1, gaussian(6), "window of 2");
+    }
+
+    @Test
+    public void hopLongerThanWindow() {
+        assertMatchesBruteForce(5, 9, gaussian(7), "hop 9 over window 5");
+        assertMatchesBruteForce(60, 60, gaussian(8), "hop equal to window");
+        assertMatchesBruteForce(6, 61, gaussian(9), "hop 61 over window 6");
+    }
+
+    @Test
+    public void ties() {
+        // Few distinct values, so heaps and deques see many equal samples
+        assertMatchesBruteForce(7, 1, levels(10, 3), "odd window, 3 levels");
+        assertMatchesBruteForce(8, 2, levels(11, 3), "even window, 3 levels");
+        assertMatchesBruteForce(60, 3, levels(12, 2), "even window, 2 levels");
+        assertMatchesBruteForce(9, 1, constant(2.5f), "constant signal");
+    }
+
+    @Test
+    public void resetStartsAFreshSession() {
+        StreamingFeatureExtractor extractor = new StreamingFeatureExtractor(8, 3);
+        float[][] first = gaussian(13);
+        for (int i = 0; i < 1234; i++) {
+            extractor.add(first[0][i], first[1][i], first[2][i]);
+        }
+        extractor.reset();
+        assertMatchesBruteForce(extractor, levels(14, 4), "after reset");
+
+        // Reset partway through the first window
+        extractor.reset();
+        for (int i = 0; i < 5; i++) {
+            assertFalse(extractor.add(first[0][i], first[1][i], first[2][i]));
+        }
+        extractor.reset();
+        assertMatchesBruteForce(extractor, gaussian(15), "after a partial window");
+    }
+
+    private static void assertMatchesBruteForce(int windowLength, int hop, float[][] samples,
+                                                String name) {
+        assertMatchesBruteForce(new StreamingFeatureExtractor(windowLength, hop), samples, name);
+    }
+
+    /**
+     * Streams {@code samples} ([axis][index]) into a freshly reset {@code extractor}.
+     */
+    private static void assertMatchesBruteForce(StreamingFeatureExtractor extractor,
+                                                float[][] samples, String name) {
+        int windowLength = extractor.getWindowLength();
+        int hop = extractor.getHop();
+        FeatureVector actual = new FeatureVector(FEATURE_NAMES);
+        float[] window = new float[windowLength];
+        int windows = 0;
+
+        for (int i = 0; i < SAMPLES; i++) {
+            boolean complete = extractor.add(samples[0][i], samples[1][i], samples[2][i]);
+            int start = i + 1 - windowLength;
+            assertEquals(name + " window end at " + i, start >= 0 && start % hop == 0, complete);
+            if (!complete) continue;
+
+            windows++;
+            extractor.read(actual);
+            for (int axis = 0; axis < 3; axis++) {
+                System.arraycopy(samples[axis], start, window, 0, windowLength);
+                String at = name + ", axis " + axis + ", window ending at " + i;
+                assertEquals(at + " max", max(window), actual.get(FeatureVector.MAX_X + axis), 0f);
+                assertEquals(at + " min", min(window), actual.get(FeatureVector.MIN_X + axis), 0f);
+                assertEquals(at + " median", median(window),
+                        actual.get(FeatureVector.MEDIAN_X + axis), 0f);
+                assertEquals(at + " mean", mean(window),
+                        actual.get(FeatureVector.MEAN_X + axis), MEAN_TOLERANCE);
+            }
+        }
+        assertTrue(name + " produced no windows", windows > 0);
+    }
+
+    private static float max(float[] window) {
+        float max = window[0];
+        for (float value : window) max = Math.max(max, value);
+        return max;
+    }
+
+    private static float min(float[] window) {
+        float min = window[0];
+        for (float value : window) min = Math.min(min, value);
+        return min;
+    }
+
+    private static float median(float[] window) {
+        float[] sorted = window.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) * 0.5f;
+    }
+
+    private static float mean(float[] window) {
+        double sum = 0;
+        for (float value : window) sum += value;
+        return (float) (sum / window.length);
+    }
+
+    // Accelerometer-like samples in m/s^2
+    private static float[][] gaussian(long seed) {
+        Random random = new Random(seed);
+        float[][] samples = new float[3][SAMPLES];
+        for (float[] axis : samples) {
+            for (int i = 0; i < SAMPLES; i++) {
+                axis[i] = (float) (random.nextGaussian() * 6.0);
+            }
+        }
+        return samples;
+    }
+
+    private static float[][] levels(long seed, int count) {
+        Random random = new Random(seed);
+        float[][] samples = new float[3][SAMPLES];
+        for (float[] axis : samples) {
+            for (int i = 0; i < SAMPLES; i++) {
+                axis[i] = random.nextInt(count) - 1f;
+            }
+        }
+        return samples;
+    }
+
+    private static float[][] constant(float value) {
+        float[][] samples = new float[3][SAMPLES];
+        for (float[] axis : samples) {
+            Arrays.fill(axis, value);
+        }
+        return samples;
+    }
+}